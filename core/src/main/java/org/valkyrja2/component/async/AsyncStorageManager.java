@@ -321,9 +321,9 @@ public class AsyncStorageManager {
      */
     public String getServerName() {
         if (usePort) {
-            return String.format("%s:%s", NetworkUtils.getHostName(), NetworkUtils.getHostPort());
+            return String.format("%s:%s", HostIdentity.getInstance().getHostName(), NetworkUtils.getHostPort());
         } else {
-            return NetworkUtils.getHostName();
+            return HostIdentity.getInstance().getHostName();
         }
     }
 
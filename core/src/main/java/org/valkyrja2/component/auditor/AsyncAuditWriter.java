@@ -0,0 +1,210 @@
+/*
+ * PROJECT valkyrja2
+ * core/AsyncAuditWriter.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.valkyrja2.util.NamedThreadFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 异步审计日志输出<br>
+ * 请求线程只把{@link AuditEvent}放入有界的无锁队列，后台线程定时批量取出、格式化并输出到{@link AuditLogger}。
+ * 队列满时丢弃新的审计数据，不阻塞请求线程。<br>
+ * 进程退出时通过ShutdownHook输出剩余的数据；应用重新部署时需要调用{@link #shutdown()}，停止输出线程并移除ShutdownHook。
+ *
+ * @author Tequila
+ * @create 2022/12/08 10:00
+ **/
+public class AsyncAuditWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncAuditWriter.class);
+
+    /** 输出线程名 */
+    private static final String THREAD_NAME = "AsyncAuditWriter";
+
+    /** 默认队列容量 */
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    /** 默认每批输出的数量 */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /** 默认输出间隔（毫秒） */
+    public static final long DEFAULT_FLUSH_INTERVAL = 200L;
+
+    /** 关闭时等待的时间（秒） */
+    private static final long STOP_WAIT_TIME = 5L;
+
+    /** 审计日志输出对象 */
+    private final AuditLogger auditLogger;
+
+    /** 日志输出级别 */
+    private final String level;
+
+    /** 格式化方法 */
+    private final Function<AuditEvent, String> formatter;
+
+    /** 队列容量 */
+    private final int queueCapacity;
+
+    /** 每批输出的数量 */
+    private final int batchSize;
+
+    /** 待输出的审计数据 */
+    private final Queue<AuditEvent> queue = new ConcurrentLinkedQueue<>();
+
+    /** 队列长度，ConcurrentLinkedQueue.size()需要遍历，单独计数 */
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    /** 丢弃的数量 */
+    private final LongAdder dropped = new LongAdder();
+
+    /** 输出线程 */
+    private final ScheduledExecutorService executor;
+
+    /** 进程退出时输出剩余数据的ShutdownHook */
+    private final Thread shutdownHook;
+
+    public AsyncAuditWriter(AuditLogger auditLogger, String level, Function<AuditEvent, String> formatter) {
+        this(auditLogger, level, formatter, DEFAULT_QUEUE_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL);
+    }
+
+    public AsyncAuditWriter(AuditLogger auditLogger, String level, Function<AuditEvent, String> formatter,
+                            int queueCapacity, int batchSize, long flushInterval) {
+        this.auditLogger = auditLogger;
+        this.level = level;
+        this.formatter = formatter;
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+
+        NamedThreadFactory threadFactory = new NamedThreadFactory(THREAD_NAME);
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = threadFactory.newThread(r);
+            t.setDaemon(true);  // 不阻止进程退出，退出时由ShutdownHook完成最后一次输出
+            return t;
+        });
+        this.executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        this.shutdownHook = new Thread(this::shutdown, THREAD_NAME + "-shutdown");
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    /**
+     * 提交审计数据
+     *
+     * @param event 审计数据
+     * @return boolean 队列已满被丢弃时返回false
+     * @author Tequila
+     * @date 2022/12/08 10:10
+     */
+    public boolean submit(AuditEvent event) {
+        if (queueSize.incrementAndGet() > queueCapacity) {
+            queueSize.decrementAndGet();
+            dropped.increment();
+            return false;
+        }
+        queue.offer(event);
+        return true;
+    }
+
+    /**
+     * 批量输出队列中的审计数据
+     *
+     * @author Tequila
+     * @date 2022/12/08 10:15
+     */
+    public void flush() {
+        try {
+            int count;
+            do {
+                count = 0;
+                AuditEvent event;
+                while (count < batchSize && (event = queue.poll()) != null) {
+                    queueSize.decrementAndGet();
+                    count++;
+                    write(event);
+                }
+            } while (count == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("AsyncAuditWriter flush error", e);  // 不能抛出异常，否则定时任务会停止
+        }
+    }
+
+    /**
+     * 输出一条审计数据
+     *
+     * @param event 审计数据
+     * @author Tequila
+     * @date 2022/12/08 10:18
+     */
+    private void write(AuditEvent event) {
+        try {
+            auditLogger.logger(level, new AuditDescription(formatter.apply(event)));
+        } catch (RuntimeException e) {
+            log.warn("Write audit event {} error", event.getRequestId(), e);
+        }
+    }
+
+    /**
+     * 停止输出线程，移除ShutdownHook，并输出剩余的审计数据
+     *
+     * @author Tequila
+     * @date 2022/12/08 10:20
+     */
+    public void shutdown() {
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // 进程正在退出
+            }
+        }
+
+        if (!executor.isShutdown()) {
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(STOP_WAIT_TIME, TimeUnit.SECONDS)) {
+                    log.info("========== 关闭异步审计日志 - 等待超时");
+                }
+            } catch (InterruptedException e) {
+                log.info("========== 关闭异步审计日志 - 被中断", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * 待输出的数量
+     *
+     * @return int
+     * @author Tequila
+     * @date 2022/12/08 10:22
+     */
+    public int getQueueSize() {
+        return queueSize.get();
+    }
+
+    /**
+     * 队列满时丢弃的数量
+     *
+     * @return long
+     * @author Tequila
+     * @date 2022/12/08 10:22
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * PROJECT valkyrja2
+ * core/AuditEvent.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import org.valkyrja2.mvc.RequestContext;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一次请求的审计数据<br>
+ * 在请求线程中只复制原始数据，不做任何格式化，格式化和输出由{@link AsyncAuditWriter}在后台线程中完成。
+ *
+ * @author Tequila
+ * @create 2022/12/08 09:30
+ **/
+public class AuditEvent {
+
+    /** 请求Id */
+    private String requestId;
+
+    /** 服务器名 */
+    private String hostId;
+
+    /** 服务器IP地址 */
+    private String hostIPAddress;
+
+    /** 请求对象的IP地址 */
+    private String remoteIPAddress;
+
+    /** 数据接收时间 */
+    private Date receiveDate;
+
+    /** http方法 */
+    private String method;
+
+    /** 请求地址 */
+    private String requestURI;
+
+    /** 请求头 */
+    private Map<String, String> headers = Collections.emptyMap();
+
+    /** 请求参数 */
+    private Map<String, String[]> parameters = Collections.emptyMap();
+
+    /** 请求body */
+    private String body;
+
+    /** 返回body，来自{@link org.valkyrja2.mvc.CachingResponse} */
+    private String responseBody;
+
+    /** 返回body是否只是前一部分 */
+    private boolean responseTruncated;
+
+    /** 开始时间（nanoTime） */
+    private long startTime;
+
+    /** 处理时间（毫秒） */
+    private long elapsed = -1;
+
+    /** http状态 */
+    private int status;
+
+    /** 异常 */
+    private Exception exception;
+
+    /** StopWatch详情 */
+    private String stopWatchDetail;
+
+    /**
+     * 从请求中采集审计数据
+     *
+     * @param request http请求
+     * @param context 请求上下文，可以为null
+     * @param detail  是否采集请求头和请求参数
+     * @return {@link AuditEvent }
+     * @author Tequila
+     * @date 2022/12/08 09:40
+     */
+    public static AuditEvent capture(HttpServletRequest request, RequestContext context, boolean detail) {
+        return capture(request, context, detail, -1);
+    }
+
+    /**
+     * 从请求中采集审计数据，最多采集maxHeaders个请求头
+     *
+     * @param request    http请求
+     * @param context    请求上下文，可以为null
+     * @param detail     是否采集请求头和请求参数
+     * @param maxHeaders 最多采集的请求头数量，小于0时不限制
+     * @return {@link AuditEvent }
+     * @author Tequila
+     * @date 2022/12/09 17:36
+     */
+    public static AuditEvent capture(HttpServletRequest request, RequestContext context, boolean detail, int maxHeaders) {
+        AuditEvent event = new AuditEvent();
+        event.startTime = System.nanoTime();
+        event.method = request.getMethod();
+        event.requestURI = request.getRequestURI();
+
+        if (context != null) {
+            event.requestId = context.getRequestId();
+            event.hostId = context.getHostId();
+            event.hostIPAddress = context.getHostIPAddress();
+            event.remoteIPAddress = context.getRemoteIPAddress();
+            event.receiveDate = context.getReceiveDate();
+        }
+
+        if (detail) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            Enumeration<String> names = request.getHeaderNames();
+            while (names.hasMoreElements() && (maxHeaders < 0 || headers.size() < maxHeaders)) {
+                String name = names.nextElement();
+                headers.put(name, request.getHeader(name));
+            }
+            event.headers = headers;
+        }
+        event.parameters = new LinkedHashMap<>(request.getParameterMap());  // 请求结束后容器会回收request，需要复制
+
+        return event;
+    }
+
+    /**
+     * 请求处理完成
+     *
+     * @param status    http状态
+     * @param exception 异常
+     * @author Tequila
+     * @date 2022/12/08 09:45
+     */
+    public void complete(int status, Exception exception) {
+        this.elapsed = (System.nanoTime() - startTime) / 1000000L;
+        this.status = status;
+        this.exception = exception;
+    }
+
+    public String getRequestId() {
+        return requestId;
+    }
+
+    public String getHostId() {
+        return hostId;
+    }
+
+    public String getHostIPAddress() {
+        return hostIPAddress;
+    }
+
+    public String getRemoteIPAddress() {
+        return remoteIPAddress;
+    }
+
+    public Date getReceiveDate() {
+        return receiveDate;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getRequestURI() {
+        return requestURI;
+    }
+
+    public Map<String, String> getHeaders() {
+        return headers;
+    }
+
+    public Map<String, String[]> getParameters() {
+        return parameters;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public boolean isResponseTruncated() {
+        return responseTruncated;
+    }
+
+    public void setResponseTruncated(boolean responseTruncated) {
+        this.responseTruncated = responseTruncated;
+    }
+
+    public long getElapsed() {
+        return elapsed;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Exception getException() {
+        return exception;
+    }
+
+    public String getStopWatchDetail() {
+        return stopWatchDetail;
+    }
+
+    public void setStopWatchDetail(String stopWatchDetail) {
+        this.stopWatchDetail = stopWatchDetail;
+    }
+}
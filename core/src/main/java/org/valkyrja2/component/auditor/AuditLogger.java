@@ -34,4 +34,17 @@ public interface AuditLogger {
 	 * @date 2022/07/20 10:23
 	 */
 	void logger(String level, AuditDescription description, Exception e);
+
+	/**
+	 * 指定的日志级别是否会输出<br>
+	 * 用于在采集审计数据之前判断，避免采集不会输出的数据
+	 *
+	 * @param level 水平
+	 * @return boolean
+	 * @author Tequila
+	 * @date 2022/12/08 09:20
+	 */
+	default boolean isEnabled(String level) {
+		return true;
+	}
 }
@@ -0,0 +1,67 @@
+/*
+ * PROJECT valkyrja2
+ * core/AuditSampler.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 审计日志采样策略<br>
+ * 请求开始时通过{@link #sample(HttpServletRequest, Object)}决定是否采集审计数据，
+ * 请求完成后通过{@link #emit(HttpServletRequest, AuditEvent)}决定已经采集的数据是否输出。
+ *
+ * @author Tequila
+ * @create 2022/12/08 14:00
+ **/
+public interface AuditSampler {
+
+    /**
+     * 是否采集当前请求的审计数据
+     *
+     * @param request http请求
+     * @param handler 处理对象
+     * @return boolean
+     * @author Tequila
+     * @date 2022/12/08 14:05
+     */
+    boolean sample(HttpServletRequest request, Object handler);
+
+    /**
+     * 请求完成后，是否输出已经采集的审计数据
+     *
+     * @param request http请求
+     * @param event   审计数据
+     * @return boolean
+     * @author Tequila
+     * @date 2022/12/08 14:06
+     */
+    default boolean emit(HttpServletRequest request, AuditEvent event) {
+        return true;
+    }
+
+    /**
+     * 采集审计数据时body的最大字符数，采集所有请求的策略应该限制采集的数据量
+     *
+     * @param length RequestWatching按bodyLogMode和bodyLogLength计算的长度
+     * @return int
+     * @author Tequila
+     * @date 2022/12/09 17:38
+     */
+    default int maxBodyLength(int length) {
+        return length;
+    }
+
+    /**
+     * 采集审计数据时最多采集的请求头数量
+     *
+     * @return int 小于0时不限制
+     * @author Tequila
+     * @date 2022/12/09 17:38
+     */
+    default int maxHeaders() {
+        return -1;
+    }
+}
@@ -52,4 +52,16 @@ public class DefaultAuditLogger implements AuditLogger {
 			default: log.debug("{}", objs); break;
 		}
 	}
+
+	@Override
+	public boolean isEnabled(String level) {
+		switch (level) {
+			case AuditConst.LL_TRACE: return log.isTraceEnabled();
+			case AuditConst.LL_INFO : return log.isInfoEnabled();
+			case AuditConst.LL_WARN : return log.isWarnEnabled();
+			case AuditConst.LL_ERROR : return log.isErrorEnabled();
+			case AuditConst.LL_DEBUG :
+			default: return log.isDebugEnabled();
+		}
+	}
 }
@@ -0,0 +1,94 @@
+/*
+ * PROJECT valkyrja2
+ * core/EndpointAuditSampler.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按接口配置采样比例<br>
+ * rates的key为ant风格的路径（例如/services/order/**），按配置的顺序匹配第一个；没有匹配的接口使用defaultRate。<br>
+ * 优先使用spring mvc匹配到的映射路径，每个映射路径的比例只匹配一次并缓存。
+ * <pre>
+ * &lt;bean class="org.valkyrja2.component.auditor.EndpointAuditSampler"&gt;
+ *   &lt;property name="defaultRate" value="0.01" /&gt;
+ *   &lt;property name="rates"&gt;
+ *     &lt;map&gt;
+ *       &lt;entry key="/services/pay/**" value="1" /&gt;
+ *     &lt;/map&gt;
+ *   &lt;/property&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/12/08 14:20
+ **/
+public class EndpointAuditSampler implements AuditSampler {
+
+    /** 路径匹配 */
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /** 每个接口的采样比例 */
+    private Map<String, Double> rates = new LinkedHashMap<>();
+
+    /** 没有配置的接口的采样比例 */
+    private double defaultRate = 1.0;
+
+    /** 映射路径对应的采样比例 */
+    private final Map<String, Double> resolved = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean sample(HttpServletRequest request, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        double rate;
+        if (pattern instanceof String) {
+            rate = resolved.computeIfAbsent((String) pattern, this::match);  // 映射路径的数量是有限的，可以缓存
+        } else {
+            rate = match(request.getRequestURI());
+        }
+        return RateAuditSampler.sample(rate);
+    }
+
+    /**
+     * 匹配路径的采样比例
+     *
+     * @param path 路径
+     * @return double
+     * @author Tequila
+     * @date 2022/12/08 14:25
+     */
+    private double match(String path) {
+        for (Map.Entry<String, Double> entry : rates.entrySet()) {
+            if (PATH_MATCHER.match(entry.getKey(), path)) return entry.getValue();
+        }
+        return defaultRate;
+    }
+
+    public Map<String, Double> getRates() {
+        return rates;
+    }
+
+    public void setRates(Map<String, Double> rates) {
+        this.rates = new LinkedHashMap<>(rates);
+        this.resolved.clear();
+    }
+
+    public double getDefaultRate() {
+        return defaultRate;
+    }
+
+    public void setDefaultRate(double defaultRate) {
+        this.defaultRate = defaultRate;
+        this.resolved.clear();
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * PROJECT valkyrja2
+ * core/EndpointLatency.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import org.valkyrja2.util.LogLinearHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个接口（处理方法）的耗时统计，时间单位为微秒<br>
+ * 包含累计的耗时分布和按周期轮换的耗时分布：当前周期持续记录，
+ * {@link #rotate()}时当前周期变为上一个周期，JMX和dump输出的周期数据都是上一个完整周期的数据。<br>
+ * 通过{@link RequestWatching#startStopWatch(String)}记录的任务按任务名单独统计，同样包含累计和按周期轮换的数据。
+ *
+ * @author Tequila
+ * @create 2022/12/08 16:05
+ **/
+public class EndpointLatency implements EndpointLatencyMXBean {
+
+    /** 每个接口最多统计的任务数量 */
+    private static final int MAX_PHASES = 64;
+
+    /** 接口名 */
+    private final String endpoint;
+
+    /** 累计耗时 */
+    private final LogLinearHistogram total = new LogLinearHistogram();
+
+    /** 周期耗时，两个轮换使用 */
+    private final LogLinearHistogram[] intervals = { new LogLinearHistogram(), new LogLinearHistogram() };
+
+    /** 当前周期的序号 */
+    private volatile int current;
+
+    /** 出错的请求数 */
+    private final LongAdder errors = new LongAdder();
+
+    /** 任务耗时 */
+    private final ConcurrentHashMap<String, Phase> phases = new ConcurrentHashMap<>();
+
+    EndpointLatency(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * 记录一次请求
+     *
+     * @param elapsedNanos 耗时（纳秒）
+     * @param error        是否出错
+     * @author Tequila
+     * @date 2022/12/08 16:10
+     */
+    public void record(long elapsedNanos, boolean error) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        total.record(micros);
+        intervals[current].record(micros);
+        if (error) errors.increment();
+    }
+
+    /**
+     * 记录一个任务的耗时
+     *
+     * @param phase        任务名
+     * @param elapsedNanos 耗时（纳秒）
+     * @author Tequila
+     * @date 2022/12/08 16:12
+     */
+    public void recordPhase(String phase, long elapsedNanos) {
+        if (phase == null) return;
+
+        Phase p = phases.get(phase);
+        if (p == null) {
+            if (phases.size() >= MAX_PHASES) return;  // 任务名是动态生成的时候，避免无限增长
+            p = phases.computeIfAbsent(phase, k -> new Phase());
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        p.total.record(micros);
+        p.intervals[current].record(micros);
+    }
+
+    /**
+     * 轮换统计周期，清空即将开始的周期
+     *
+     * @author Tequila
+     * @date 2022/12/08 16:15
+     */
+    void rotate() {
+        int next = 1 - current;
+        intervals[next].reset();
+        phases.values().forEach(p -> p.intervals[next].reset());
+        current = next;
+    }
+
+    /**
+     * 上一个完整周期的耗时分布
+     *
+     * @return {@link LogLinearHistogram }
+     * @author Tequila
+     * @date 2022/12/08 16:16
+     */
+    private LogLinearHistogram previous() {
+        return intervals[1 - current];
+    }
+
+    /**
+     * 输出统计数据
+     *
+     * @param sb 输出
+     * @author Tequila
+     * @date 2022/12/08 16:20
+     */
+    void dump(StringBuilder sb) {
+        LogLinearHistogram interval = previous();
+        sb.append(String.format("%s count=%d errors=%d mean=%.0f p50=%d p99=%d max=%d | interval count=%d p50=%d p99=%d max=%d%n",
+                endpoint, total.getCount(), errors.sum(), total.getMean(), total.percentile(50), total.percentile(99),
+                total.getMax(), interval.getCount(), interval.percentile(50), interval.percentile(99), interval.getMax()));
+        int prev = 1 - current;
+        for (Map.Entry<String, Phase> entry : new TreeMap<>(phases).entrySet()) {
+            LogLinearHistogram h = entry.getValue().total;
+            LogLinearHistogram i = entry.getValue().intervals[prev];
+            sb.append(String.format("    %s count=%d p50=%d p99=%d max=%d | interval count=%d p50=%d p99=%d max=%d%n",
+                    entry.getKey(), h.getCount(), h.percentile(50), h.percentile(99), h.getMax(),
+                    i.getCount(), i.percentile(50), i.percentile(99), i.getMax()));
+        }
+    }
+
+    @Override
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public long getCount() {
+        return total.getCount();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public double getMean() {
+        return total.getMean();
+    }
+
+    @Override
+    public long getP50() {
+        return total.percentile(50);
+    }
+
+    @Override
+    public long getP99() {
+        return total.percentile(99);
+    }
+
+    @Override
+    public long getMax() {
+        return total.getMax();
+    }
+
+    @Override
+    public long getIntervalCount() {
+        return previous().getCount();
+    }
+
+    @Override
+    public long getIntervalP50() {
+        return previous().percentile(50);
+    }
+
+    @Override
+    public long getIntervalP99() {
+        return previous().percentile(99);
+    }
+
+    @Override
+    public long getIntervalMax() {
+        return previous().getMax();
+    }
+
+    @Override
+    public Map<String, Long> getPhaseP99() {
+        Map<String, Long> result = new TreeMap<>();
+        phases.forEach((phase, p) -> result.put(phase, p.total.percentile(99)));
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getIntervalPhaseP99() {
+        int prev = 1 - current;
+        Map<String, Long> result = new TreeMap<>();
+        phases.forEach((phase, p) -> result.put(phase, p.intervals[prev].percentile(99)));
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        total.reset();
+        intervals[0].reset();
+        intervals[1].reset();
+        errors.reset();
+        phases.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        dump(sb);
+        return sb.toString();
+    }
+
+    /**
+     * 一个任务的耗时，与接口耗时一样包含累计和两个轮换的周期
+     */
+    private static class Phase {
+
+        /** 累计耗时 */
+        private final LogLinearHistogram total = new LogLinearHistogram();
+
+        /** 周期耗时，两个轮换使用 */
+        private final LogLinearHistogram[] intervals = { new LogLinearHistogram(), new LogLinearHistogram() };
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * PROJECT valkyrja2
+ * core/EndpointLatencyMXBean.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import java.util.Map;
+
+/**
+ * 接口耗时统计JMX接口，每个处理方法注册一个，时间单位为微秒
+ * ObjectName: org.valkyrja2:type=EndpointLatency,endpoint="..."
+ *
+ * @author Tequila
+ * @create 2022/12/08 16:00
+ **/
+public interface EndpointLatencyMXBean {
+
+    String getEndpoint();
+
+    long getCount();
+
+    long getErrors();
+
+    double getMean();
+
+    long getP50();
+
+    long getP99();
+
+    long getMax();
+
+    /** 上一个统计周期的请求数 */
+    long getIntervalCount();
+
+    /** 上一个统计周期的P50 */
+    long getIntervalP50();
+
+    /** 上一个统计周期的P99 */
+    long getIntervalP99();
+
+    /** 上一个统计周期的最大值 */
+    long getIntervalMax();
+
+    /** 各个StopWatch任务累计的P99 */
+    Map<String, Long> getPhaseP99();
+
+    /** 上一个统计周期各个StopWatch任务的P99 */
+    Map<String, Long> getIntervalPhaseP99();
+
+    void reset();
+}
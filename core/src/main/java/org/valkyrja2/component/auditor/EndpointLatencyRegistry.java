@@ -0,0 +1,195 @@
+/*
+ * PROJECT valkyrja2
+ * core/EndpointLatencyRegistry.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import org.springframework.web.method.HandlerMethod;
+import org.valkyrja2.util.JmxUtils;
+import org.valkyrja2.util.NamedThreadFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口耗时统计登记<br>
+ * 按处理方法（HandlerMethod）统计请求耗时，每个处理方法注册到JMX（org.valkyrja2:type=EndpointLatency,endpoint="..."），
+ * 可以通过{@link #dump()}输出所有接口的统计数据。统计周期由后台线程定时轮换。<br>
+ * 应用关闭或者重新部署时需要调用{@link #shutdown()}停止轮换线程并注销MBean（RequestWatching销毁时会调用）。
+ *
+ * @author Tequila
+ * @create 2022/12/08 16:30
+ **/
+public class EndpointLatencyRegistry {
+
+    private static volatile EndpointLatencyRegistry _instance;
+    private EndpointLatencyRegistry() { }
+    public static EndpointLatencyRegistry getInstance() {
+        EndpointLatencyRegistry instance = _instance;
+        if (instance == null) {
+            synchronized (EndpointLatencyRegistry.class) {
+                instance = _instance;
+                if (instance == null) {
+                    instance = new EndpointLatencyRegistry();
+                    instance.startRotate();
+                    _instance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** 轮换线程名 */
+    private static final String THREAD_NAME = "EndpointLatencyRotate";
+
+    /** 默认统计周期（秒） */
+    public static final long DEFAULT_INTERVAL = 60L;
+
+    /** 处理方法对应的统计 */
+    private final ConcurrentHashMap<Method, EndpointLatency> methods = new ConcurrentHashMap<>();
+
+    /** 所有接口的统计 */
+    private final ConcurrentHashMap<String, EndpointLatency> endpoints = new ConcurrentHashMap<>();
+
+    /** 轮换线程 */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 获取处理对象的统计，不存在时创建并注册到JMX
+     *
+     * @param handler 处理对象
+     * @return {@link EndpointLatency } 不是HandlerMethod时返回null
+     * @author Tequila
+     * @date 2022/12/08 16:35
+     */
+    public EndpointLatency forHandler(Object handler) {
+        if (!(handler instanceof HandlerMethod)) return null;
+
+        Method method = ((HandlerMethod) handler).getMethod();
+        EndpointLatency latency = methods.get(method);
+        if (latency != null) return latency;
+
+        return methods.computeIfAbsent(method, m -> get(endpointName(m)));
+    }
+
+    /**
+     * 处理方法的接口名：类的全名.方法名(参数类型)，避免不同包的同名类或者重载方法计入同一个统计
+     *
+     * @param method 处理方法
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/12/09 16:55
+     */
+    static String endpointName(Method method) {
+        StringJoiner params = new StringJoiner(",", "(", ")");
+        for (Class<?> type : method.getParameterTypes()) {
+            params.add(type.getTypeName());
+        }
+        return method.getDeclaringClass().getName() + "." + method.getName() + params;
+    }
+
+    /**
+     * 获取接口的统计，不存在时创建并注册到JMX
+     *
+     * @param endpoint 接口名
+     * @return {@link EndpointLatency }
+     * @author Tequila
+     * @date 2022/12/08 16:36
+     */
+    public EndpointLatency get(String endpoint) {
+        EndpointLatency latency = endpoints.get(endpoint);
+        if (latency != null) return latency;
+
+        return endpoints.computeIfAbsent(endpoint, e -> {
+            EndpointLatency l = new EndpointLatency(e);
+            JmxUtils.registerMBean(l, "EndpointLatency", "endpoint", l.getEndpoint());
+            return l;
+        });
+    }
+
+    /**
+     * 所有接口的统计
+     *
+     * @return {@link List }<{@link EndpointLatency }>
+     * @author Tequila
+     * @date 2022/12/08 16:38
+     */
+    public List<EndpointLatency> getAll() {
+        List<EndpointLatency> list = new ArrayList<>(endpoints.values());
+        list.sort(Comparator.comparing(EndpointLatency::getEndpoint));
+        return list;
+    }
+
+    /**
+     * 输出所有接口的统计数据（微秒）
+     *
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/12/08 16:40
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (EndpointLatency latency : getAll()) {
+            latency.dump(sb);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 轮换所有接口的统计周期
+     *
+     * @author Tequila
+     * @date 2022/12/08 16:42
+     */
+    public void rotate() {
+        endpoints.values().forEach(EndpointLatency::rotate);
+    }
+
+    /**
+     * 启动轮换线程
+     *
+     * @author Tequila
+     * @date 2022/12/08 16:44
+     */
+    private void startRotate() {
+        NamedThreadFactory threadFactory = new NamedThreadFactory(THREAD_NAME);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = threadFactory.newThread(r);
+            t.setDaemon(true);  // 不阻止进程退出
+            return t;
+        });
+        scheduler.scheduleAtFixedRate(this::rotate, DEFAULT_INTERVAL, DEFAULT_INTERVAL, TimeUnit.SECONDS);
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * 停止轮换线程，注销所有接口的MBean并清空统计；之后调用{@link #getInstance()}会重新创建
+     *
+     * @author Tequila
+     * @date 2022/12/09 17:42
+     */
+    public static void shutdown() {
+        EndpointLatencyRegistry registry;
+        synchronized (EndpointLatencyRegistry.class) {
+            registry = _instance;
+            _instance = null;
+        }
+        if (registry == null) return;
+
+        if (registry.scheduler != null) registry.scheduler.shutdownNow();
+        for (String endpoint : registry.endpoints.keySet()) {
+            JmxUtils.unregisterMBean("EndpointLatency", "endpoint", endpoint);
+        }
+        registry.endpoints.clear();
+        registry.methods.clear();
+    }
+}
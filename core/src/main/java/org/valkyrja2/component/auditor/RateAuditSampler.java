@@ -0,0 +1,57 @@
+/*
+ * PROJECT valkyrja2
+ * core/RateAuditSampler.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 固定比例采样
+ *
+ * @author Tequila
+ * @create 2022/12/08 14:10
+ **/
+public class RateAuditSampler implements AuditSampler {
+
+    /** 采样比例，0~1 */
+    private double rate;
+
+    public RateAuditSampler() {
+        this(1.0);
+    }
+
+    public RateAuditSampler(double rate) {
+        setRate(rate);
+    }
+
+    @Override
+    public boolean sample(HttpServletRequest request, Object handler) {
+        return sample(rate);
+    }
+
+    /**
+     * 按比例采样
+     *
+     * @param rate 采样比例，0~1
+     * @return boolean
+     * @author Tequila
+     * @date 2022/12/08 14:12
+     */
+    static boolean sample(double rate) {
+        if (rate >= 1.0) return true;
+        if (rate <= 0.0) return false;
+        return ThreadLocalRandom.current().nextDouble() < rate;
+    }
+
+    public double getRate() {
+        return rate;
+    }
+
+    public void setRate(double rate) {
+        this.rate = Math.max(0.0, Math.min(1.0, rate));
+    }
+}
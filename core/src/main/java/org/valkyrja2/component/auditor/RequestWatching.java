@@ -6,18 +6,25 @@
 
 package org.valkyrja2.component.auditor;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.util.StopWatch;
 import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+import org.valkyrja2.mvc.CachingResponse;
+import org.valkyrja2.mvc.MultipleReadHttpRequest;
 import org.valkyrja2.mvc.RequestContextFactory;
 import org.valkyrja2.util.DateUtils;
 import org.valkyrja2.util.NetworkUtils;
 import org.valkyrja2.util.StringUtils;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
-import java.util.Enumeration;
+import java.util.Map;
 
 import static org.valkyrja2.component.auditor.AuditConst.LL_TRACE;
 
@@ -27,13 +34,21 @@ import static org.valkyrja2.component.auditor.AuditConst.LL_TRACE;
  * <pre>
  * useRequestContext 是否使用RequestContext信息输出日志
  * loggerLevel       日志输出级别
- * bodyLogger        是否输出body对象的日志，默认为不输出，如需输出，需要对使用CachingRequestBodyFilter进行配置
+ * bodyLogger        是否输出body对象的日志，默认为不输出，如需输出，需要对使用CachingRequestBodyFilter进行配置，
+ *                   只输出可以重复读取（MultipleReadHttpRequest缓存）的请求body，FULL以外的模式只读取bodyLogLength个字符；
+ *                   CachingHttpBodyFilter替换了HttpServletResponse时（包括tee模式）同时输出返回body
  * bodyLogLength     body日志最大的输出总长度
  * bodyLogMode       body数据超限输出模式，默认为跳过输出。
  *                   FULL 全部输出
  *                   CUT  根据bodyLogLength截取输出
  *                   SKIP 跳过输出，并以%ltBOLB:sha256:length&gt格式进行替换输出
  * simplyMode        简要输出模式，仅输出url,requestId,query,body
+ * auditQueueCapacity 审计日志队列容量，队列满时丢弃
+ * auditBatchSize    审计日志每批输出的数量
+ * endpointMetrics   是否按处理方法统计耗时分布，包括通过startStopWatch记录的任务，见EndpointLatencyRegistry
+ * auditSampler      采样策略，默认输出所有请求。可选RateAuditSampler（固定比例）、
+ *                   EndpointAuditSampler（按接口配置比例）、TailAuditSampler（只输出慢请求和出错的请求）
+ * 每个请求只采集一次审计数据，请求完成后由后台线程格式化并输出，bean销毁时（destroy）停止后台线程
  * </pre>
  * spring配置
  * <pre>
@@ -52,7 +67,7 @@ import static org.valkyrja2.component.auditor.AuditConst.LL_TRACE;
  * @author Tequila
  * @create 2022/07/19 18:05
  **/
-public class RequestWatching implements AsyncHandlerInterceptor {
+public class RequestWatching implements AsyncHandlerInterceptor, DisposableBean {
 
 	protected static final String[] LOGGER_LEVEL = { AuditConst.LL_TRACE, AuditConst.LL_DEBUG, AuditConst.LL_INFO };
 
@@ -98,110 +113,190 @@ public class RequestWatching implements AsyncHandlerInterceptor {
 	/** 会话StopWatch */
 	private static NamedThreadLocal<StopWatch> sessionStopWatch = new NamedThreadLocal<>("RequestWatchingStopWatch");
 
+	/** 异步请求时保存StopWatch的request attribute */
+	private static final String ATTR_STOPWATCH = RequestWatching.class.getName() + ".STOPWATCH";
+
+	/** 保存审计数据的request attribute */
+	private static final String ATTR_AUDIT_EVENT = RequestWatching.class.getName() + ".AUDIT_EVENT";
+
+	/** 审计日志队列容量 */
+	private int auditQueueCapacity = AsyncAuditWriter.DEFAULT_QUEUE_CAPACITY;
+
+	/** 审计日志每批输出的数量 */
+	private int auditBatchSize = AsyncAuditWriter.DEFAULT_BATCH_SIZE;
+
+	/** 一个字符最多占用的字节数（UTF-8） */
+	private static final int MAX_BYTES_PER_CHAR = 4;
+
+	/** 保存请求开始时间的request attribute */
+	private static final String ATTR_START_TIME = RequestWatching.class.getName() + ".START_TIME";
+
+	/** 是否按处理方法统计耗时 */
+	private boolean endpointMetrics = true;
+
+	/** 采样策略，为null时输出所有请求 */
+	private AuditSampler auditSampler;
+
+	/** 异步审计日志输出 */
+	private volatile AsyncAuditWriter auditWriter;
+
 	/**
-	 * 统一的日志输出操作函数<br>
-	 * 默认方法将会输出所有内容而不限定长度<br>
-	 * 默认方法将会定义信息为详细信息
+	 * 将审计数据格式化为日志，在后台线程中执行
 	 *
-	 * @param s 字符串
+	 * @param event 审计数据
+	 * @return {@link String }
 	 * @author Tequila
-	 * @date 2022/07/19 18:18
+	 * @date 2022/12/08 10:40
 	 */
-	private void logger(String s) {
-		logger(s, -1, true);
+	protected String format(AuditEvent event) {
+		String prefix = event.getRequestId() != null ? "[" + event.getRequestId() + "] " : "";
+		StringBuilder sb = new StringBuilder(1024);
+
+		append(sb, prefix, String.format("*** API-URL:[%s] %s ***", event.getMethod(), event.getRequestURI()), false);
+
+		if (event.getRequestId() != null) {
+			append(sb, prefix, "**********requestContext-start**********", true);
+			append(sb, prefix, "RequestId:" + event.getRequestId(), false);
+			append(sb, prefix, "HostId:" + event.getHostId(), false);
+			append(sb, prefix, "HostIPAddress:" + event.getHostIPAddress(), false);
+			append(sb, prefix, "RemoteIPAddress:" + event.getRemoteIPAddress(), true);
+			append(sb, prefix, "ReceiveDate:" + DateUtils.formatDate(event.getReceiveDate()), true);
+			append(sb, prefix, "**********requestContext-end************", true);
+		}
+
+		append(sb, prefix, "**********requestHead-start*************", true);
+		for (Map.Entry<String, String> header : event.getHeaders().entrySet()) {
+			append(sb, prefix, header.getKey() + "=" + header.getValue(), true);
+		}
+		append(sb, prefix, "**********requestHead-end***************", true);
+
+		append(sb, prefix, "**********Parameter-start***************", true);
+		for (Map.Entry<String, String[]> param : event.getParameters().entrySet()) {
+			String[] values = param.getValue();
+			String value = values != null && values.length > 0 ? values[0] : null;
+			append(sb, prefix, limit(param.getKey() + "=" + value, bodyLogLength), false);
+		}
+		append(sb, prefix, "**********Parameter-end*****************", true);
+
+		if (bodyLogger) {
+			append(sb, prefix, "**********requestBody-start*************", true);
+			if (StringUtils.isNotBlank(event.getBody())) {
+				append(sb, prefix, limit(event.getBody(), bodyLogLength), false);
+			}
+			append(sb, prefix, "**********requestBody-end***************", true);
+
+			if (event.getResponseBody() != null) {
+				append(sb, prefix, "**********responseBody-start************", true);
+				if (StringUtils.isNotBlank(event.getResponseBody())) {
+					append(sb, prefix, limit(event.getResponseBody(), bodyLogLength), false);
+				}
+				if (event.isResponseTruncated()) {
+					append(sb, prefix, "<TRUNCATED>", false);
+				}
+				append(sb, prefix, "**********responseBody-end**************", true);
+			}
+		}
+
+		if (!SWM_NONE.equals(stopWatchMode) && event.getElapsed() >= 0) {
+			append(sb, prefix, String.format("[%s] %s 消耗时间：%sms", event.getMethod(), event.getRequestURI(), event.getElapsed()), false);
+			if (event.getStopWatchDetail() != null) {
+				append(sb, prefix, "运行时间详情：\n" + event.getStopWatchDetail(), true);
+			}
+		}
+
+		return sb.toString();
 	}
 
 	/**
-	 * 统一的日志输出操作函数<br>
-	 * 默认方法将会输出所有内容而不限定长度
+	 * 添加一行日志
 	 *
+	 * @param sb         日志
+	 * @param prefix     行前缀
 	 * @param s          日志输出内容
-	 * @param showDetail 显示细节
+	 * @param showDetail 是否为详细信息，简要模式下不输出
 	 * @author Tequila
-	 * @date 2022/07/19 20:10
+	 * @date 2022/12/08 10:45
 	 */
-	private void logger(String s, boolean showDetail) {
-		logger(s, bodyLogLength, showDetail);
+	private void append(StringBuilder sb, String prefix, String s, boolean showDetail) {
+		if (simplyMode && showDetail) return;  // 如果是简要模式，且当前信息为详细信息，则忽略输出
+
+		if (sb.length() > 0) sb.append('\n');
+		sb.append(prefix).append(s);
 	}
 
 	/**
-	 * 统一的日志输出操作函数，可通过length变量控制输出的长度
+	 * 根据body日志输出模式限制输出的长度
 	 *
-	 * @param s          日志输出内容
-	 * @param length     最大输出日志长度
-	 * @param showDetail 显示细节
+	 * @param s      日志输出内容
+	 * @param length 最大输出日志长度
+	 * @return {@link String }
 	 * @author Tequila
 	 * @date 2022/07/19 18:18
 	 */
-	private void logger(String s, int length, boolean showDetail) {
-		if (simplyMode && showDetail) return;  // 如果是简要模式，且当前信息为详细信息，则忽略输出
-		
-		String logOut = "";
-		/* 处理body对象日志输出模式 */
-		if (length != -1 && s.length() > length) {
-			switch (bodyLogMode) {
-				case BLM_FULL: logOut = s; break;
-				case BLM_TRUNCATED: logOut = StringUtils.abbreviate(s, bodyLogLength); break;
-				case BLM_SKIP: logOut = String.format("<BLOB:%d>", s.length()); break;
-			}
-		} else {
-			logOut = s;
+	private String limit(String s, int length) {
+		if (s.length() <= length) return s;
+
+		switch (bodyLogMode) {
+			case BLM_FULL: return s;
+			case BLM_SKIP: return String.format("<BLOB:%d>", s.length());
+			case BLM_TRUNCATED:
+			default: return StringUtils.abbreviate(s, bodyLogLength);
 		}
-		
-		if (useRequestContext && RequestContextFactory.getContext() != null) {
-			logOut = String.format("[%s] %s", RequestContextFactory.getContext().getRequestId(), logOut);
+	}
+
+	/**
+	 * 获取异步审计日志输出对象，第一次使用时创建
+	 *
+	 * @return {@link AsyncAuditWriter }
+	 * @author Tequila
+	 * @date 2022/12/08 10:50
+	 */
+	private AsyncAuditWriter getAuditWriter() {
+		AsyncAuditWriter writer = this.auditWriter;
+		if (writer == null) {
+			synchronized (this) {
+				writer = this.auditWriter;
+				if (writer == null) {
+					this.auditWriter = writer = new AsyncAuditWriter(auditLogger, loggerLevel, this::format,
+							auditQueueCapacity, auditBatchSize, AsyncAuditWriter.DEFAULT_FLUSH_INTERVAL);
+				}
+			}
 		}
-		auditLogger.logger(loggerLevel, new AuditDescription(logOut));
+		return writer;
 	}
 
 	@Override
 	public boolean preHandle(HttpServletRequest request,
 			HttpServletResponse response, Object handler) throws Exception {
-		String requestSignature = String.format("[%s] %s", request.getMethod(), request.getRequestURI());
-		StopWatch sw = null;
-		if (!SWM_NONE.equals(stopWatchMode)) {
-			sw = new StopWatch(RequestContextFactory.getContext().getRequestId());
-			sessionStopWatch.set(sw);
-			sw.start(requestSignature);
+		if (request.getDispatcherType() == DispatcherType.ASYNC) {
+			/* 异步处理完成后重新分派，请求信息已经采集过，只需要恢复StopWatch */
+			Object sw = request.getAttribute(ATTR_STOPWATCH);
+			if (sw instanceof StopWatch) sessionStopWatch.set((StopWatch) sw);
+			return true;
 		}
 
-		logger(String.format("*** API-URL:%s ***", requestSignature), false);
-
-		if (useRequestContext && RequestContextFactory.getContext() != null) {
-			logger("**********requestContext-start**********");
-			logger("RequestId:" + RequestContextFactory.getContext().getRequestId(), false);
-			logger("HostId:" + RequestContextFactory.getContext().getHostId(), false);
-			logger("HostIPAddress:" + RequestContextFactory.getContext().getHostIPAddress(), false);
-			logger("RemoteIPAddress:" + RequestContextFactory.getContext().getRemoteIPAddress());
-			logger("ReceiveDate:" + DateUtils.formatDate(RequestContextFactory.getContext().getReceiveDate()));
-			logger("**********requestContext-end************");
+		if (endpointMetrics) {
+			request.setAttribute(ATTR_START_TIME, System.nanoTime());
 		}
 
-		logger("**********requestHead-start*************");
-		Enumeration<String> heads = request.getHeaderNames();
-		while (heads.hasMoreElements()) {
-			String headName = heads.nextElement();
-			logger(headName + "=" + request.getHeader(headName));
+		StopWatch sw = null;
+		if (!SWM_NONE.equals(stopWatchMode)) {
+			sw = new StopWatch(currentRequestId());
+			sessionStopWatch.set(sw);
+			sw.start(requestTaskName(request));
 		}
-		logger("**********requestHead-end***************");
 
-		logger("**********Parameter-start***************");
-		Enumeration<String> names = request.getParameterNames();
-		while (names.hasMoreElements()) {
-			String pars = names.nextElement();
-			logger(String.format("%s=%s", pars, request.getParameter(pars)), false);
-		}
-		logger("**********Parameter-end*****************");
-		
-		if (bodyLogger) {
-			logger("**********requestBody-start*************");
-			String body = NetworkUtils.getHttpRequestBody(request);
-			if (StringUtils.isNotBlank(body)) {
-				logger(body, bodyLogLength, false);
+		/* 日志级别没有开启时不采集；请求线程中只复制数据，格式化和输出在后台线程中完成 */
+		if (auditLogger.isEnabled(loggerLevel) && (auditSampler == null || auditSampler.sample(request, handler))) {
+			AuditEvent event = AuditEvent.capture(request, useRequestContext ? RequestContextFactory.getContext() : null,
+					!simplyMode, auditSampler != null ? auditSampler.maxHeaders() : -1);
+			if (bodyLogger) {
+				event.setBody(readRequestBody(request, captureBodyLength()));
 			}
-			logger("**********requestBody-end***************");
+			request.setAttribute(ATTR_AUDIT_EVENT, event);
 		}
-		if (!SWM_NONE.equals(stopWatchMode) && sw != null) {
+
+		if (sw != null) {
 			sw.stop();
 		}
 
@@ -212,17 +307,152 @@ public class RequestWatching implements AsyncHandlerInterceptor {
 	public void afterCompletion(HttpServletRequest request,
 			HttpServletResponse response, Object handler, Exception ex)
 			throws Exception {
-		if (!SWM_NONE.equals(stopWatchMode)) {
-			StopWatch sw = sessionStopWatch.get();
-			if (sw.isRunning()) sw.stop();
+		StopWatch sw = sessionStopWatch.get();
+		if (sw != null && sw.isRunning()) sw.stop();
+
+		Object startTime = request.getAttribute(ATTR_START_TIME);
+		if (startTime instanceof Long) {
+			request.removeAttribute(ATTR_START_TIME);
+			recordLatency(request, handler, System.nanoTime() - (Long) startTime, response.getStatus() >= 500 || ex != null, sw);
+		}
 
-			logger(String.format("[%s] %s 消耗时间：%sms", request.getMethod(), request.getRequestURI(), sw.getTotalTimeMillis()), false);
-			if (SWM_DETAIL.equals(stopWatchMode)) {
-				logger("运行时间详情：\n" + sw.prettyPrint());
+		Object event = request.getAttribute(ATTR_AUDIT_EVENT);
+		if (event instanceof AuditEvent) {
+			request.removeAttribute(ATTR_AUDIT_EVENT);
+			((AuditEvent) event).complete(response.getStatus(), ex);
+			if (bodyLogger) {
+				captureResponseBody((AuditEvent) event, response);
+			}
+			if (SWM_DETAIL.equals(stopWatchMode) && sw != null) {
+				((AuditEvent) event).setStopWatchDetail(sw.prettyPrint());
+			}
+			if (auditSampler == null || auditSampler.emit(request, (AuditEvent) event)) {
+				getAuditWriter().submit((AuditEvent) event);
 			}
 		}
 
 		if (sessionStopWatch.get() != null) sessionStopWatch.remove();
+		request.removeAttribute(ATTR_STOPWATCH);
+	}
+
+	/**
+	 * 停止审计日志的输出线程并输出剩余的数据，停止接口耗时统计的轮换线程并注销MBean，应用关闭或者重新部署时由spring调用
+	 *
+	 * @author Tequila
+	 * @date 2022/12/09 17:30
+	 */
+	@Override
+	public void destroy() {
+		AsyncAuditWriter writer = this.auditWriter;
+		if (writer != null) writer.shutdown();  // 保留对象，关闭后提交的数据不再输出，不会重新创建输出线程
+
+		if (endpointMetrics) {
+			endpointMetrics = false;  // 销毁之后完成的请求不再统计，避免重新创建轮换线程
+			EndpointLatencyRegistry.shutdown();
+		}
+	}
+
+	/**
+	 * 采集body的最大字符数<br>
+	 * FULL模式不限制，其它模式多读取一个字符用于判断是否超过bodyLogLength；采样策略可以进一步限制（例如尾部采样）
+	 *
+	 * @return int
+	 * @author Tequila
+	 * @date 2022/12/09 17:35
+	 */
+	private int captureBodyLength() {
+		int length = BLM_FULL.equals(bodyLogMode) ? Integer.MAX_VALUE : bodyLogLength + 1;
+		return auditSampler != null ? auditSampler.maxBodyLength(length) : length;
+	}
+
+	/**
+	 * 读取请求body，最多读取maxLength个字符<br>
+	 * 只读取MultipleReadHttpRequest缓存的body，其它请求的body只能读取一次，读取后处理方法将无法读取
+	 *
+	 * @param request   请求
+	 * @param maxLength 最大读取的字符数
+	 * @return {@link String } 不能重复读取时返回null
+	 * @throws IOException IO异常
+	 * @author Tequila
+	 * @date 2022/12/09 17:28
+	 */
+	private static String readRequestBody(HttpServletRequest request, int maxLength) throws IOException {
+		MultipleReadHttpRequest cachedRequest = WebUtils.getNativeRequest(request, MultipleReadHttpRequest.class);
+		if (cachedRequest == null || !cachedRequest.isCacheable()) return null;
+
+		return NetworkUtils.getHttpRequestBody(cachedRequest, maxLength);
+	}
+
+	/**
+	 * 从CachingResponse中复制返回body，tee模式下只有保留的前一部分<br>
+	 * 最多复制{@link #captureBodyLength()}个字符可能占用的字节数
+	 *
+	 * @param event    审计数据
+	 * @param response 返回
+	 * @author Tequila
+	 * @date 2022/12/09 17:20
+	 */
+	private void captureResponseBody(AuditEvent event, HttpServletResponse response) {
+		CachingResponse cachingResponse = WebUtils.getNativeResponse(response, CachingResponse.class);
+		if (cachingResponse == null) return;
+
+		byte[] body = cachingResponse.getBody();
+		int length = (int) Math.min(body.length, (long) captureBodyLength() * MAX_BYTES_PER_CHAR);
+		Charset charset = response.getCharacterEncoding() != null
+				? Charset.forName(response.getCharacterEncoding()) : StandardCharsets.UTF_8;
+		event.setResponseBody(new String(body, 0, length, charset));
+		event.setResponseTruncated(cachingResponse.isTruncated() || length < body.length);
+	}
+
+	/**
+	 * preHandle中采集请求信息时StopWatch的任务名称
+	 *
+	 * @param request 请求
+	 * @return {@link String }
+	 * @author Tequila
+	 * @date 2022/12/09 16:50
+	 */
+	private static String requestTaskName(HttpServletRequest request) {
+		return String.format("[%s] %s", request.getMethod(), request.getRequestURI());
+	}
+
+	/**
+	 * 记录处理方法的耗时，以及StopWatch中各个任务的耗时<br>
+	 * preHandle中采集请求信息的任务不属于处理阶段，不计入阶段耗时；
+	 * stopWatchMode为NONE时StopWatch由业务代码创建，所有任务都计入。
+	 *
+	 * @param request      请求
+	 * @param handler      处理对象
+	 * @param elapsedNanos 耗时（纳秒）
+	 * @param error        是否出错
+	 * @param sw           StopWatch
+	 * @author Tequila
+	 * @date 2022/12/08 17:00
+	 */
+	private void recordLatency(HttpServletRequest request, Object handler, long elapsedNanos, boolean error, StopWatch sw) {
+		EndpointLatency latency = EndpointLatencyRegistry.getInstance().forHandler(handler);
+		if (latency == null) return;
+
+		latency.record(elapsedNanos, error);
+		if (sw != null) {
+			StopWatch.TaskInfo[] tasks = sw.getTaskInfo();
+			int first = tasks.length > 0 && tasks[0].getTaskName().equals(requestTaskName(request)) ? 1 : 0;
+			for (int i = first; i < tasks.length; i++) {
+				latency.recordPhase(tasks[i].getTaskName(), tasks[i].getTimeNanos());
+			}
+		}
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request,
+			HttpServletResponse response, Object handler) throws Exception {
+		/* 开始异步处理，当前线程将被容器回收，StopWatch保存到request中，重新分派时再恢复 */
+		StopWatch sw = sessionStopWatch.get();
+		if (sw != null) {
+			if (sw.isRunning()) sw.stop();
+			request.setAttribute(ATTR_STOPWATCH, sw);
+			sessionStopWatch.remove();
+		}
 	}
 
 	public boolean isUseRequestContext() {
@@ -289,6 +519,38 @@ public class RequestWatching implements AsyncHandlerInterceptor {
 		this.auditLogger = auditLogger;
 	}
 
+	public int getAuditQueueCapacity() {
+		return auditQueueCapacity;
+	}
+
+	public void setAuditQueueCapacity(int auditQueueCapacity) {
+		this.auditQueueCapacity = auditQueueCapacity;
+	}
+
+	public int getAuditBatchSize() {
+		return auditBatchSize;
+	}
+
+	public void setAuditBatchSize(int auditBatchSize) {
+		this.auditBatchSize = auditBatchSize;
+	}
+
+	public boolean isEndpointMetrics() {
+		return endpointMetrics;
+	}
+
+	public void setEndpointMetrics(boolean endpointMetrics) {
+		this.endpointMetrics = endpointMetrics;
+	}
+
+	public AuditSampler getAuditSampler() {
+		return auditSampler;
+	}
+
+	public void setAuditSampler(AuditSampler auditSampler) {
+		this.auditSampler = auditSampler;
+	}
+
 	public String getStopWatchMode() {
 		return stopWatchMode;
 	}
@@ -311,13 +573,25 @@ public class RequestWatching implements AsyncHandlerInterceptor {
 	public static StopWatch getSessionStopWatch() {
 		StopWatch sw = sessionStopWatch.get();
 		if (sw == null) {
-			sw = new StopWatch(RequestContextFactory.getContext().getRequestId());
+			sw = new StopWatch(currentRequestId());
 			sessionStopWatch.set(sw);
 		}
 
 		return sw;
 	}
 
+	/**
+	 * 当前请求的requestId，没有RequestContext时生成一个新的requestId
+	 *
+	 * @return {@link String }
+	 * @author Tequila
+	 * @date 2022/12/07 17:00
+	 */
+	private static String currentRequestId() {
+		String requestId = RequestContextFactory.getCurrentRequestId();
+		return requestId != null ? requestId : RequestContextFactory.nextRequestId();
+	}
+
 	/**
 	 * 启动秒表
 	 *
@@ -0,0 +1,136 @@
+/*
+ * PROJECT valkyrja2
+ * core/TailAuditSampler.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.auditor;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * 尾部采样<br>
+ * 请求完成之前无法知道是否是慢请求或者出错的请求，因此所有请求都要采集审计数据，请求完成后只输出慢请求和出错的请求；
+ * 其它请求按baseSampler采样输出，没有配置baseSampler时不输出。<br>
+ * 每个请求都需要复制请求头、请求参数，开启bodyLogger时还要读取body，开销与输出所有请求时的采集相同，
+ * 因此通过maxBodyLength和maxHeaders限制每个请求采集的数据量。
+ * <pre>
+ * &lt;bean class="org.valkyrja2.component.auditor.TailAuditSampler"&gt;
+ *   &lt;property name="slowThreshold" value="1000" /&gt;
+ *   &lt;property name="baseSampler"&gt;
+ *     &lt;bean class="org.valkyrja2.component.auditor.RateAuditSampler"&gt;
+ *       &lt;property name="rate" value="0.01" /&gt;
+ *     &lt;/bean&gt;
+ *   &lt;/property&gt;
+ * &lt;/bean&gt;
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/12/08 14:40
+ **/
+public class TailAuditSampler implements AuditSampler {
+
+    /** 默认慢请求阈值（毫秒） */
+    public static final long DEFAULT_SLOW_THRESHOLD = 1000L;
+
+    /** 保存baseSampler采样结果的request attribute */
+    private static final String ATTR_BASE_SAMPLED = TailAuditSampler.class.getName() + ".BASE_SAMPLED";
+
+    /** 默认最多采集的body字符数 */
+    public static final int DEFAULT_MAX_BODY_LENGTH = 256;
+
+    /** 默认最多采集的请求头数量 */
+    public static final int DEFAULT_MAX_HEADERS = 32;
+
+    /** 错误状态的起始值 */
+    private static final int ERROR_STATUS = 500;
+
+    /** 慢请求阈值（毫秒） */
+    private long slowThreshold = DEFAULT_SLOW_THRESHOLD;
+
+    /** 是否输出出错的请求 */
+    private boolean emitError = true;
+
+    /** 普通请求的采样策略 */
+    private AuditSampler baseSampler;
+
+    /** 最多采集的body字符数 */
+    private int maxBodyLength = DEFAULT_MAX_BODY_LENGTH;
+
+    /** 最多采集的请求头数量 */
+    private int maxHeaders = DEFAULT_MAX_HEADERS;
+
+    public TailAuditSampler() {
+        /* ignore */
+    }
+
+    public TailAuditSampler(long slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    @Override
+    public boolean sample(HttpServletRequest request, Object handler) {
+        if (baseSampler != null && baseSampler.sample(request, handler)) {
+            request.setAttribute(ATTR_BASE_SAMPLED, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean emit(HttpServletRequest request, AuditEvent event) {
+        if (event.getElapsed() >= slowThreshold) return true;
+        if (emitError && (event.getException() != null || event.getStatus() >= ERROR_STATUS)) return true;
+
+        return request.getAttribute(ATTR_BASE_SAMPLED) != null && baseSampler.emit(request, event);
+    }
+
+    @Override
+    public int maxBodyLength(int length) {
+        return Math.min(length, maxBodyLength);
+    }
+
+    @Override
+    public int maxHeaders() {
+        return maxHeaders;
+    }
+
+    public long getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public void setSlowThreshold(long slowThreshold) {
+        this.slowThreshold = slowThreshold;
+    }
+
+    public boolean isEmitError() {
+        return emitError;
+    }
+
+    public void setEmitError(boolean emitError) {
+        this.emitError = emitError;
+    }
+
+    public AuditSampler getBaseSampler() {
+        return baseSampler;
+    }
+
+    public void setBaseSampler(AuditSampler baseSampler) {
+        this.baseSampler = baseSampler;
+    }
+
+    public int getMaxBodyLength() {
+        return maxBodyLength;
+    }
+
+    public void setMaxBodyLength(int maxBodyLength) {
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    public int getMaxHeaders() {
+        return maxHeaders;
+    }
+
+    public void setMaxHeaders(int maxHeaders) {
+        this.maxHeaders = maxHeaders;
+    }
+}
@@ -12,6 +12,8 @@ package org.valkyrja2.component.cacher;
 import org.valkyrja2.component.cacher.bean.ArrayCacheData;
 import org.valkyrja2.util.ClassUtils;
 
+import java.util.Collection;
+
 /**
  * Set-缓存对象
  *
@@ -69,6 +71,29 @@ public abstract class AbstractArrayDataCacher<T extends ArrayCacheData> extends
 
     @Override
     public boolean cache() {
+        CacherMetrics metrics = metrics();
+        long start = System.nanoTime();
+        long payloadSize = metrics != null ? payloadSize(this.getData().newValues()) : 0;
+        boolean result;
+        try {
+            result = cacheValues();
+        } catch (RuntimeException e) {
+            if (metrics != null) metrics.recordError();
+            throw e;
+        }
+        if (metrics != null) metrics.recordWrite(System.nanoTime() - start, payloadSize);
+
+        return result;
+    }
+
+    /**
+     * 缓存新增的数据，并删除需要删除的数据
+     *
+     * @return boolean
+     * @author Tequila
+     * @date 2022/12/09 16:20
+     */
+    private boolean cacheValues() {
         /* 缓存时，先处理新增的数据，再处理删除数据 */
 
         for (String v : this.getData().newValues()) {
@@ -94,6 +119,24 @@ public abstract class AbstractArrayDataCacher<T extends ArrayCacheData> extends
         return true;
     }
 
+    /**
+     * 成员的数据大小（字符数），与{@link ValueDataCacher}统计json字符数的口径一致
+     *
+     * @param members 成员
+     * @return long
+     * @author Tequila
+     * @date 2022/12/09 16:22
+     */
+    protected static long payloadSize(Collection<String> members) {
+        if (members == null) return 0;
+
+        long size = 0;
+        for (String member : members) {
+            if (member != null) size += member.length();
+        }
+        return size;
+    }
+
     /**
      * 缓存一个值
      *
@@ -0,0 +1,421 @@
+/*
+ * PROJECT valkyrja2
+ * core/CacheWarmer.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.types.Expiration;
+import org.valkyrja2.component.cacher.bean.CacheData;
+import org.valkyrja2.util.NamedThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 缓存预热<br>
+ * 按prefix注册数据加载方法，启动时（或者redis故障切换之后）从热点key快照或者自定义查询中取得前N个id，
+ * 分批并行从数据源加载数据，再使用pipeline以SET NX的方式写入redis（不会覆盖已经存在的缓存）。<br>
+ * 通过{@link #setRateLimit(int)}限制每秒从数据源加载的数量，以保护后端存储。
+ * <pre>
+ *      CacheWarmer warmer = new CacheWarmer();
+ *      warmer.register(new ValueDataCacher&lt;&gt;("product:", 3600), snapshot, ids -&gt; productService.findByIds(ids));
+ *      warmer.warmUp();
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/11/28 10:30
+ **/
+public class CacheWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    /** 默认每个prefix预热的数量 */
+    private static final int DEFAULT_TOP_N = 1000;
+
+    /** 默认每批数量 */
+    private static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** 默认并行数量 */
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    /** 线程名字 */
+    public static final String THREAD_NAME = "CacheWarmer";
+
+    /** 已注册的预热任务 */
+    private final List<Registration<?>> registrations = new CopyOnWriteArrayList<>();
+
+    /** 每个prefix预热的数量 */
+    private int topN = DEFAULT_TOP_N;
+
+    /** 每批数量 */
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    /** 并行数量 */
+    private int parallelism = DEFAULT_PARALLELISM;
+
+    /** 每秒从数据源加载的最大数量，小于等于0为不限制 */
+    private int rateLimit;
+
+    /** 总数 */
+    private final AtomicLong total = new AtomicLong();
+
+    /** 已写入数量 */
+    private final AtomicLong written = new AtomicLong();
+
+    /** redis中已经存在而跳过的数量 */
+    private final AtomicLong skipped = new AtomicLong();
+
+    /** 数据源中不存在的数量 */
+    private final AtomicLong missing = new AtomicLong();
+
+    /** 失败数量 */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * 注册预热任务
+     *
+     * @param cacher   缓存对象，用于构建key和到期时间
+     * @param idSource id来源
+     * @param loader   数据加载方法
+     * @author Tequila
+     * @date 2022/11/28 10:40
+     */
+    public <T extends CacheData> void register(ValueDataCacher<T> cacher, IdSource idSource, Loader<T> loader) {
+        registrations.add(new Registration<>(cacher, idSource, loader));
+    }
+
+    /**
+     * 执行预热，所有prefix预热完成后返回
+     *
+     * @return long 写入的数量
+     * @author Tequila
+     * @date 2022/11/28 10:45
+     */
+    public long warmUp() {
+        total.set(0);
+        written.set(0);
+        skipped.set(0);
+        missing.set(0);
+        failed.set(0);
+
+        List<Batch> batches = new ArrayList<>();
+        for (Registration<?> registration : registrations) {
+            List<String> ids = registration.idSource.topIds(registration.cacher.getPrefix(), topN);
+            for (int i = 0; i < ids.size(); i += batchSize) {
+                batches.add(new Batch(registration, ids.subList(i, Math.min(i + batchSize, ids.size()))));
+            }
+            total.addAndGet(ids.size());
+        }
+        if (batches.isEmpty()) return 0;
+
+        log.info("========== 缓存预热 - 开始，prefix: {}, 总数: {}", registrations.size(), total.get());
+        long start = System.currentTimeMillis();
+        RateLimiter limiter = rateLimit > 0 ? new RateLimiter(rateLimit) : null;
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NamedThreadFactory(THREAD_NAME));
+        try {
+            List<Future<?>> futures = new ArrayList<>(batches.size());
+            for (Batch batch : batches) {
+                futures.add(executor.submit(() -> runBatch(batch, limiter)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            log.info("========== 缓存预热 - 被中断", e);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.warn("========== 缓存预热 - 出错", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        log.info("========== 缓存预热 - 结束，写入: {}, 已存在: {}, 数据不存在: {}, 失败: {}, 用时: {}ms",
+                written.get(), skipped.get(), missing.get(), failed.get(), System.currentTimeMillis() - start);
+
+        return written.get();
+    }
+
+    /**
+     * 执行一批预热
+     *
+     * @param batch   批
+     * @param limiter 限流
+     * @author Tequila
+     * @date 2022/11/28 10:50
+     */
+    private void runBatch(Batch batch, RateLimiter limiter) {
+        try {
+            if (limiter != null) limiter.acquire(batch.ids.size());
+
+            batch.registration.write(batch.ids, this);
+        } catch (InterruptedException e) {
+            failed.addAndGet(batch.ids.size());
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            failed.addAndGet(batch.ids.size());
+            log.warn("Cache warm up batch of [{}] error.", batch.registration.cacher.getPrefix(), e);
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Cache warm up progress: {}/{}, failed: {}", processed(), total.get(), failed.get());
+        }
+    }
+
+    /**
+     * 预热进度（0-100）
+     *
+     * @return int
+     * @author Tequila
+     * @date 2022/11/28 10:55
+     */
+    public int getProgress() {
+        long t = total.get();
+        return t == 0 ? 100 : (int) (processed() * 100 / t);
+    }
+
+    /**
+     * 已处理的数量
+     *
+     * @return long
+     * @author Tequila
+     * @date 2022/12/09 16:10
+     */
+    private long processed() {
+        return written.get() + skipped.get() + missing.get() + failed.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getMissing() {
+        return missing.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public int getTopN() {
+        return topN;
+    }
+
+    public void setTopN(int topN) {
+        this.topN = topN;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getRateLimit() {
+        return rateLimit;
+    }
+
+    public void setRateLimit(int rateLimit) {
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * 预热id来源
+     *
+     * @author Tequila
+     * @create 2022/11/28 10:32
+     **/
+    @FunctionalInterface
+    public interface IdSource {
+
+        /**
+         * 获取需要预热的id
+         *
+         * @param prefix 前缀
+         * @param limit  最大数量
+         * @return {@link List }<{@link String }>
+         * @author Tequila
+         * @date 2022/11/28 10:33
+         */
+        List<String> topIds(String prefix, int limit);
+    }
+
+    /**
+     * 预热数据加载
+     *
+     * @author Tequila
+     * @create 2022/11/28 10:34
+     **/
+    @FunctionalInterface
+    public interface Loader<T extends CacheData> {
+
+        /**
+         * 从数据源批量加载数据
+         *
+         * @param ids id
+         * @return {@link Map }<{@link String }, {@link T }> key为id，不存在的数据可以不返回
+         * @author Tequila
+         * @date 2022/11/28 10:35
+         */
+        Map<String, T> load(List<String> ids);
+    }
+
+    /**
+     * 预热任务
+     *
+     * @author Tequila
+     * @create 2022/11/28 10:36
+     **/
+    private static final class Registration<T extends CacheData> {
+
+        private final ValueDataCacher<T> cacher;
+
+        private final IdSource idSource;
+
+        private final Loader<T> loader;
+
+        private Registration(ValueDataCacher<T> cacher, IdSource idSource, Loader<T> loader) {
+            this.cacher = cacher;
+            this.idSource = idSource;
+            this.loader = loader;
+        }
+
+        /**
+         * 加载数据并使用pipeline写入redis，按pipeline的实际结果统计写入和跳过的数量
+         *
+         * @param ids    id
+         * @param warmer 统计结果
+         * @author Tequila
+         * @date 2022/11/28 10:48
+         */
+        private void write(List<String> ids, CacheWarmer warmer) {
+            Map<String, T> data = loader.load(ids);
+            if (data == null || data.isEmpty()) {
+                warmer.missing.addAndGet(ids.size());
+                return;
+            }
+
+            List<byte[]> keys = new ArrayList<>(data.size());
+            List<byte[]> values = new ArrayList<>(data.size());
+            List<Long> expires = new ArrayList<>(data.size());
+            for (Map.Entry<String, T> entry : data.entrySet()) {
+                if (entry.getValue() == null) continue;
+
+                keys.add(cacher.buildKey(entry.getKey()).getBytes(StandardCharsets.UTF_8));
+                values.add(entry.getValue().value().getBytes(StandardCharsets.UTF_8));
+                expires.add(cacher.expire());
+            }
+
+            warmer.missing.addAndGet(countMissing(ids, data));
+            List<Object> results = cacher.getRedisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    long expire = expires.get(i);
+                    connection.stringCommands().set(keys.get(i), values.get(i),
+                            expire == DataCacher.NO_EXPIRE ? Expiration.persistent() : Expiration.seconds(expire),
+                            RedisStringCommands.SetOption.SET_IF_ABSENT);
+                }
+                return null;
+            });
+
+            long count = 0;
+            for (Object result : results) {
+                if (Boolean.TRUE.equals(result)) count++;  // SET NX没有写入时返回false或者null
+            }
+            warmer.written.addAndGet(count);
+            warmer.skipped.addAndGet(keys.size() - count);
+        }
+
+        /**
+         * 统计loader没有返回数据的id，按id去重，loader返回的其它id不影响统计
+         *
+         * @param ids  请求加载的id
+         * @param data loader返回的数据
+         * @return long
+         * @author Tequila
+         * @date 2022/12/09 17:15
+         */
+        private static long countMissing(List<String> ids, Map<String, ?> data) {
+            return ids.stream().distinct().filter(id -> data.get(id) == null).count();
+        }
+    }
+
+    /**
+     * 一批预热数据
+     *
+     * @author Tequila
+     * @create 2022/11/28 10:37
+     **/
+    private static final class Batch {
+
+        private final Registration<?> registration;
+
+        private final List<String> ids;
+
+        private Batch(Registration<?> registration, List<String> ids) {
+            this.registration = registration;
+            this.ids = ids;
+        }
+    }
+
+    /**
+     * 简单的限流，按照固定速率发放许可
+     *
+     * @author Tequila
+     * @create 2022/11/28 10:38
+     **/
+    private static final class RateLimiter {
+
+        /** 每个许可的间隔（纳秒） */
+        private final long interval;
+
+        /** 下一个可用许可的时间（nanoTime） */
+        private long nextFreeTime;
+
+        private RateLimiter(int permitsPerSecond) {
+            this.interval = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+            this.nextFreeTime = System.nanoTime();
+        }
+
+        private void acquire(int permits) throws InterruptedException {
+            long waitTime;
+            synchronized (this) {
+                long now = System.nanoTime();
+                if (nextFreeTime - now < 0) nextFreeTime = now;
+                waitTime = nextFreeTime - now;
+                nextFreeTime += interval * permits;
+            }
+            if (waitTime > 0) TimeUnit.NANOSECONDS.sleep(waitTime);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * PROJECT valkyrja2
+ * core/CacherMetrics.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+import org.valkyrja2.util.JmxUtils;
+import org.valkyrja2.util.LogLinearHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存统计<br>
+ * 按prefix统计命中、未命中、写入、错误次数，数据大小，以及读取、写入、序列化的耗时分布（微秒）。
+ * 所有计数都是无锁的，可以在进程内通过{@link #get(String)}或{@link #getAll()}查询，
+ * 同时每个prefix会注册到JMX（org.valkyrja2:type=CacherMetrics,prefix="..."）。
+ *
+ * @author Tequila
+ * @create 2022/11/29 11:10
+ **/
+public class CacherMetrics implements CacherMetricsMXBean {
+
+    /** 所有prefix的统计 */
+    private static final ConcurrentHashMap<String, CacherMetrics> METRICS = new ConcurrentHashMap<>();
+
+    /** 是否开启统计 */
+    private static volatile boolean enabled = true;
+
+    private final String prefix;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder writes = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final LongAdder readPayloadSize = new LongAdder();
+
+    private final LongAdder writePayloadSize = new LongAdder();
+
+    private final LogLinearHistogram readTime = new LogLinearHistogram();
+
+    private final LogLinearHistogram writeTime = new LogLinearHistogram();
+
+    private final LogLinearHistogram serializationTime = new LogLinearHistogram();
+
+    private CacherMetrics(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * 获取prefix的统计，不存在时创建并注册到JMX
+     *
+     * @param prefix 前缀
+     * @return {@link CacherMetrics }
+     * @author Tequila
+     * @date 2022/11/29 11:15
+     */
+    public static CacherMetrics get(String prefix) {
+        CacherMetrics metrics = METRICS.get(prefix);
+        if (metrics != null) return metrics;
+
+        return METRICS.computeIfAbsent(prefix, p -> {
+            CacherMetrics m = new CacherMetrics(p);
+            JmxUtils.registerMBean(m, "CacherMetrics", "prefix", m.prefix);
+            return m;
+        });
+    }
+
+    /**
+     * 所有prefix的统计
+     *
+     * @return {@link List }<{@link CacherMetrics }>
+     * @author Tequila
+     * @date 2022/11/29 11:18
+     */
+    public static List<CacherMetrics> getAll() {
+        return new ArrayList<>(METRICS.values());
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        CacherMetrics.enabled = enabled;
+    }
+
+    /**
+     * 记录一次读取
+     *
+     * @param hit          是否命中
+     * @param elapsedNanos 耗时（纳秒）
+     * @param payloadSize  数据大小
+     * @author Tequila
+     * @date 2022/11/29 11:25
+     */
+    public void recordRead(boolean hit, long elapsedNanos, long payloadSize) {
+        if (hit) {
+            hits.increment();
+            readPayloadSize.add(payloadSize);
+        } else {
+            misses.increment();
+        }
+        readTime.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    /**
+     * 记录一次写入
+     *
+     * @param elapsedNanos 耗时（纳秒）
+     * @param payloadSize  数据大小
+     * @author Tequila
+     * @date 2022/11/29 11:28
+     */
+    public void recordWrite(long elapsedNanos, long payloadSize) {
+        writes.increment();
+        writePayloadSize.add(payloadSize);
+        writeTime.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    /**
+     * 记录一次序列化或反序列化
+     *
+     * @param elapsedNanos 耗时（纳秒）
+     * @author Tequila
+     * @date 2022/11/29 11:30
+     */
+    public void recordSerialization(long elapsedNanos) {
+        serializationTime.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    /**
+     * 记录一次错误
+     *
+     * @author Tequila
+     * @date 2022/11/29 11:32
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    @Override
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getReadPayloadSize() {
+        return readPayloadSize.sum();
+    }
+
+    @Override
+    public long getWritePayloadSize() {
+        return writePayloadSize.sum();
+    }
+
+    @Override
+    public long getReadTimeP50() {
+        return readTime.percentile(50);
+    }
+
+    @Override
+    public long getReadTimeP99() {
+        return readTime.percentile(99);
+    }
+
+    @Override
+    public long getReadTimeMax() {
+        return readTime.getMax();
+    }
+
+    @Override
+    public long getWriteTimeP50() {
+        return writeTime.percentile(50);
+    }
+
+    @Override
+    public long getWriteTimeP99() {
+        return writeTime.percentile(99);
+    }
+
+    @Override
+    public long getWriteTimeMax() {
+        return writeTime.getMax();
+    }
+
+    @Override
+    public long getSerializationTimeP50() {
+        return serializationTime.percentile(50);
+    }
+
+    @Override
+    public long getSerializationTimeP99() {
+        return serializationTime.percentile(99);
+    }
+
+    @Override
+    public long getSerializationTimeMax() {
+        return serializationTime.getMax();
+    }
+
+    @Override
+    public void reset() {
+        hits.reset();
+        misses.reset();
+        writes.reset();
+        errors.reset();
+        readPayloadSize.reset();
+        writePayloadSize.reset();
+        readTime.reset();
+        writeTime.reset();
+        serializationTime.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s hits: %d, misses: %d, writes: %d, errors: %d, read p99: %dus, write p99: %dus",
+                prefix, getHits(), getMisses(), getWrites(), getErrors(), getReadTimeP99(), getWriteTimeP99());
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * PROJECT valkyrja2
+ * core/CacherMetricsMXBean.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+/**
+ * 缓存统计JMX接口，每个prefix注册一个
+ * ObjectName: org.valkyrja2:type=CacherMetrics,prefix="..."
+ *
+ * @author Tequila
+ * @create 2022/11/29 11:00
+ **/
+public interface CacherMetricsMXBean {
+
+    String getPrefix();
+
+    long getHits();
+
+    long getMisses();
+
+    /**
+     * 命中率（0-1）
+     *
+     * @return double
+     * @author Tequila
+     * @date 2022/11/29 11:02
+     */
+    double getHitRatio();
+
+    long getWrites();
+
+    long getErrors();
+
+    /** 读取的数据大小（字符数） */
+    long getReadPayloadSize();
+
+    /** 写入的数据大小（字符数） */
+    long getWritePayloadSize();
+
+    /** 读取耗时（微秒） */
+    long getReadTimeP50();
+
+    long getReadTimeP99();
+
+    long getReadTimeMax();
+
+    /** 写入耗时（微秒） */
+    long getWriteTimeP50();
+
+    long getWriteTimeP99();
+
+    long getWriteTimeMax();
+
+    /** 序列化/反序列化耗时（微秒） */
+    long getSerializationTimeP50();
+
+    long getSerializationTimeP99();
+
+    long getSerializationTimeMax();
+
+    /**
+     * 清空统计数据
+     *
+     * @author Tequila
+     * @date 2022/11/29 11:05
+     */
+    void reset();
+}
@@ -0,0 +1,47 @@
+/*
+ * PROJECT valkyrja2
+ * core/CacherScripts.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * 缓存对象使用的lua脚本
+ * DefaultRedisScript会缓存脚本的sha1，执行时优先使用EVALSHA，只有在redis中没有该脚本时才会发送完整脚本
+ *
+ * @author Tequila
+ * @create 2022/11/21 10:30
+ **/
+public final class CacherScripts {
+
+    /**
+     * 读取value并延长到期时间
+     * KEYS[1] key, ARGV[1] 到期时间（秒），小于等于0时不延长
+     */
+    public static final RedisScript<String> GET_AND_TOUCH = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) " +
+            "if v and tonumber(ARGV[1]) > 0 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+            "return v",
+            String.class);
+
+    /**
+     * 读取set所有成员并延长到期时间
+     * KEYS[1] key, ARGV[1] 到期时间（秒），小于等于0时不延长
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static final RedisScript<List<String>> MEMBERS_AND_TOUCH = new DefaultRedisScript(
+            "local m = redis.call('SMEMBERS', KEYS[1]) " +
+            "if #m > 0 and tonumber(ARGV[1]) > 0 then redis.call('EXPIRE', KEYS[1], ARGV[1]) end " +
+            "return m",
+            List.class);
+
+    private CacherScripts() {
+        throw new IllegalStateException("Const class");
+    }
+}
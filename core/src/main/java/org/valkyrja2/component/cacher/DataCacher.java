@@ -51,6 +51,15 @@ public abstract class DataCacher<T extends CacheData> {
     /** 自动延长expire */
     private boolean autoTouch;
 
+    /** 延迟写入，参考{@link WriteBehindManager} */
+    private boolean writeBehind;
+
+    /** key中带上命名空间版本号，参考{@link NamespaceGeneration} */
+    private boolean generational;
+
+    /** 热点key检测，参考{@link HotKeyDetector} */
+    private boolean hotKeyDetection;
+
     /**
      * 上一次判断结果
      * 如果cacherExists == null，则表示没有进行过判断
@@ -191,7 +200,11 @@ public abstract class DataCacher<T extends CacheData> {
     public boolean exists(String id, boolean useLastCheck) {
         if (!useLastCheck || lastExists == null ) {  // 如果不适用最后一次结果，或者最后一次结果是null，都重新从redis中获取
             String key = buildKey(id);
-            lastExists = Boolean.TRUE.equals(getRedisTemplate().hasKey(key));
+            if (writeBehind && WriteBehindManager.getInstance().pendingValue(key) != null) {
+                lastExists = true;  // 尚未写入redis的值也算存在
+            } else {
+                lastExists = Boolean.TRUE.equals(getRedisTemplate().hasKey(key));
+            }
         }
         return lastExists;
     }
@@ -254,7 +267,7 @@ public abstract class DataCacher<T extends CacheData> {
      * @date 2022/04/08 01:00
      */
     public boolean touch() {
-        if (expire != -1) {
+        if (expire != NO_EXPIRE) {
             String key = buildKey();
             return Boolean.TRUE.equals(getRedisTemplate().expire(key, expire(), TimeUnit.SECONDS));
         } else {
@@ -272,6 +285,22 @@ public abstract class DataCacher<T extends CacheData> {
         if (this.autoTouch) touch();
     }
 
+    /**
+     * 读取时需要同步延长的到期时间（秒）
+     * 如果没有开启autoTouch，或者数据没有到期时间，则返回{@link #NO_EXPIRE}
+     *
+     * @return long
+     * @author Tequila
+     * @date 2022/11/21 10:12
+     */
+    protected long autoTouchExpire() {
+        if (this.autoTouch && this.expire != NO_EXPIRE) {
+            return expire();
+        } else {
+            return NO_EXPIRE;
+        }
+    }
+
     /**
      * 构建key
      *
@@ -286,6 +315,7 @@ public abstract class DataCacher<T extends CacheData> {
     /**
      * 构建key
      * 如果prefix最后没有以:结尾，这自动添加:
+     * 开启generational时，key中会带上命名空间版本号，格式为prefix:g{n}:id
      *
      * @param id id
      * @return {@link String }
@@ -293,13 +323,32 @@ public abstract class DataCacher<T extends CacheData> {
      * @date 2022/04/07 17:38
      */
     protected String buildKey(String id) {
-        if (this.prefix.endsWith(":")) {
-            return this.prefix + id;
+        String keyPrefix = this.prefix.endsWith(":") ? this.prefix : this.prefix + ":";
+        if (this.generational) {
+            long gen = NamespaceGeneration.getInstance().get(getRedisTemplate(), keyPrefix);
+            return StringUtils.concat(keyPrefix, "g", String.valueOf(gen), ":", id);
         } else {
-            return StringUtils.concat(this.prefix, ":", id);
+            return keyPrefix + id;
         }
     }
 
+    /**
+     * 失效当前prefix下的所有缓存
+     * 递增命名空间版本号，旧版本的key不再被读取，并依赖到期时间自动清理
+     *
+     * @return long 新的版本号
+     * @author Tequila
+     * @date 2022/11/24 10:40
+     */
+    public long invalidateAll() {
+        if (!this.generational) {
+            throw new IllegalStateException("invalidateAll requires generational to be enabled");
+        }
+
+        String keyPrefix = this.prefix.endsWith(":") ? this.prefix : this.prefix + ":";
+        return NamespaceGeneration.getInstance().increment(getRedisTemplate(), keyPrefix);
+    }
+
     /**
      * 获取到期时间
      *
@@ -308,13 +357,36 @@ public abstract class DataCacher<T extends CacheData> {
      * @date 2022/04/08 01:09
      */
     protected long expire() {
-        if (expire != -1 && isRandomExpire()) {
+        if (expire != NO_EXPIRE && isRandomExpire()) {
             return RedisUtils.randomTimeout(expire);
         } else {
             return expire;
         }
     }
 
+    /**
+     * 记录最后一次判断结果
+     * 在载入数据时顺便得到了是否存在的结果，之后调用{@link #exists()}时无需再访问redis
+     *
+     * @param lastExists 最后一次判断结果
+     * @author Tequila
+     * @date 2022/11/21 10:20
+     */
+    protected void setLastExists(Boolean lastExists) {
+        this.lastExists = lastExists;
+    }
+
+    /**
+     * 当前prefix的统计
+     *
+     * @return {@link CacherMetrics } 没有开启统计时返回null
+     * @author Tequila
+     * @date 2022/11/29 11:40
+     */
+    protected CacherMetrics metrics() {
+        return CacherMetrics.isEnabled() ? CacherMetrics.get(this.prefix) : null;
+    }
+
     /**
      * 获取RedisTemplate
      *
@@ -404,6 +476,30 @@ public abstract class DataCacher<T extends CacheData> {
         this.autoTouch = autoTouch;
     }
 
+    public boolean isWriteBehind() {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(boolean writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public boolean isGenerational() {
+        return generational;
+    }
+
+    public void setGenerational(boolean generational) {
+        this.generational = generational;
+    }
+
+    public boolean isHotKeyDetection() {
+        return hotKeyDetection;
+    }
+
+    public void setHotKeyDetection(boolean hotKeyDetection) {
+        this.hotKeyDetection = hotKeyDetection;
+    }
+
     public String getPrefix() {
         return prefix;
     }
@@ -0,0 +1,412 @@
+/*
+ * PROJECT valkyrja2
+ * core/HotKeyDetector.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 热点key检测<br>
+ * 对缓存的读取进行采样，使用count-min sketch估算每个key的读取次数，计数每隔{@link #getDecayInterval()}毫秒减半，
+ * 估算次数超过{@link #getHotThreshold()}的key被认为是热点key，其数据会在本地保存一份短时间（{@link #getLocalTtl()}毫秒）的副本，
+ * 以减少对redis单个分片的压力。<br>
+ * 本地副本在本进程写入时会立即失效，但其它进程写入后，最多会读取到{@link #getLocalTtl()}毫秒的旧数据。
+ * <pre>
+ *      cacher.setHotKeyDetection(true);
+ *      HotKeyDetector.getInstance().getHotKeys();  // 当前的热点key
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/11/25 09:30
+ **/
+public class HotKeyDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeyDetector.class);
+    private static volatile HotKeyDetector _instance;
+    private HotKeyDetector() { }
+    public static HotKeyDetector getInstance() {
+        if (_instance == null) {
+            synchronized (HotKeyDetector.class) {
+                if (_instance == null) {
+                    _instance = new HotKeyDetector();
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /** sketch深度（hash函数数量） */
+    private static final int DEPTH = 4;
+
+    /** sketch宽度，必须是2的幂 */
+    private static final int WIDTH = 1024;
+
+    /** 默认采样率，每N次读取记录一次；热点key的读取非常频繁，全部记录会在同一组计数上产生竞争 */
+    private static final int DEFAULT_SAMPLE_RATE = 16;
+
+    /** 默认热点阈值（一个衰减周期内的读取次数） */
+    private static final long DEFAULT_HOT_THRESHOLD = 1000L;
+
+    /** 默认衰减间隔（毫秒） */
+    private static final long DEFAULT_DECAY_INTERVAL = 10000L;
+
+    /** 默认本地副本有效期（毫秒） */
+    private static final long DEFAULT_LOCAL_TTL = 1000L;
+
+    /** 默认最多保存的热点key数量 */
+    private static final int DEFAULT_MAX_HOT_KEYS = 100;
+
+    /** count-min sketch计数 */
+    private final AtomicLongArray sketch = new AtomicLongArray(DEPTH * WIDTH);
+
+    /** 热点key */
+    private final ConcurrentHashMap<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+
+    /** 热点key的本地副本 */
+    private final ConcurrentHashMap<String, LocalCopy> localCopies = new ConcurrentHashMap<>();
+
+    /** 下一次衰减的时间（nanoTime） */
+    private final AtomicLong nextDecayTime = new AtomicLong(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DEFAULT_DECAY_INTERVAL));
+
+    /** 是否正在衰减 */
+    private final AtomicBoolean decaying = new AtomicBoolean(false);
+
+    private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+
+    private volatile long hotThreshold = DEFAULT_HOT_THRESHOLD;
+
+    private volatile long decayInterval = DEFAULT_DECAY_INTERVAL;
+
+    private volatile long localTtl = DEFAULT_LOCAL_TTL;
+
+    private volatile int maxHotKeys = DEFAULT_MAX_HOT_KEYS;
+
+    /**
+     * 记录一次读取
+     *
+     * @param prefix 前缀
+     * @param id     id
+     * @param key    redis key
+     * @return boolean 是否是热点key
+     * @author Tequila
+     * @date 2022/11/25 09:45
+     */
+    public boolean record(String prefix, String id, String key) {
+        decayIfNecessary();
+
+        int rate = this.sampleRate;
+        if (rate <= 1 || ThreadLocalRandom.current().nextInt(rate) == 0) {
+            long estimate = increment(key) * Math.max(rate, 1);
+            if (estimate >= hotThreshold) {
+                HotKey hotKey = hotKeys.get(key);
+                if (hotKey != null) {
+                    hotKey.count = estimate;
+                } else if (hotKeys.size() < maxHotKeys
+                        && hotKeys.putIfAbsent(key, new HotKey(key, prefix, id, estimate)) == null) {
+                    log.info("Hot key detected: {}, estimated reads: {}", key, estimate);
+                }
+                return true;
+            }
+        }
+
+        return hotKeys.containsKey(key);
+    }
+
+    /**
+     * 是否是热点key
+     *
+     * @param key redis key
+     * @return boolean
+     * @author Tequila
+     * @date 2022/11/25 09:50
+     */
+    public boolean isHot(String key) {
+        return hotKeys.containsKey(key);
+    }
+
+    /**
+     * 读取本地副本
+     *
+     * @param key redis key
+     * @return {@link String } 不存在或者已经过期时返回null
+     * @author Tequila
+     * @date 2022/11/25 09:55
+     */
+    public String getLocal(String key) {
+        LocalCopy copy = localCopies.get(key);
+        if (copy == null) return null;
+
+        if (System.nanoTime() - copy.expireTime >= 0) {
+            localCopies.remove(key, copy);
+            return null;
+        }
+        return copy.value;
+    }
+
+    /**
+     * 保存本地副本，只有热点key才会保存
+     *
+     * @param key   redis key
+     * @param value 值
+     * @author Tequila
+     * @date 2022/11/25 10:00
+     */
+    public void putLocal(String key, String value) {
+        if (value == null || !hotKeys.containsKey(key)) return;
+
+        localCopies.put(key, new LocalCopy(value, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(localTtl)));
+    }
+
+    /**
+     * 删除本地副本，数据被修改时调用
+     *
+     * @param key redis key
+     * @author Tequila
+     * @date 2022/11/25 10:05
+     */
+    public void invalidate(String key) {
+        localCopies.remove(key);
+    }
+
+    /**
+     * 当前的热点key，按照估算的读取次数从大到小排序
+     *
+     * @return {@link List }<{@link HotKey }>
+     * @author Tequila
+     * @date 2022/11/25 10:10
+     */
+    public List<HotKey> getHotKeys() {
+        List<HotKey> list = new ArrayList<>(hotKeys.values());
+        list.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+        return list;
+    }
+
+    /**
+     * 清空所有统计数据和本地副本
+     *
+     * @author Tequila
+     * @date 2022/11/25 10:12
+     */
+    public void reset() {
+        for (int i = 0; i < sketch.length(); i++) {
+            sketch.set(i, 0);
+        }
+        hotKeys.clear();
+        localCopies.clear();
+    }
+
+    /**
+     * 计数加一，并返回估算的次数（所有行中的最小值）
+     *
+     * @param key key
+     * @return long
+     * @author Tequila
+     * @date 2022/11/25 10:15
+     */
+    private long increment(String key) {
+        int h1 = key.hashCode();
+        int h2 = spread(h1);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * WIDTH + ((h1 + i * h2) & (WIDTH - 1));
+            min = Math.min(min, sketch.incrementAndGet(index));
+        }
+        return min;
+    }
+
+    /**
+     * 估算key的次数
+     *
+     * @param key key
+     * @return long
+     * @author Tequila
+     * @date 2022/11/25 10:18
+     */
+    private long estimate(String key) {
+        int h1 = key.hashCode();
+        int h2 = spread(h1);
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * WIDTH + ((h1 + i * h2) & (WIDTH - 1));
+            min = Math.min(min, sketch.get(index));
+        }
+        return min;
+    }
+
+    /**
+     * 第二个hash值，必须是奇数
+     *
+     * @param h hash
+     * @return int
+     * @author Tequila
+     * @date 2022/11/25 10:20
+     */
+    private static int spread(int h) {
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h | 1;
+    }
+
+    /**
+     * 到达衰减时间时，将所有计数减半，并移除不再是热点的key
+     *
+     * @author Tequila
+     * @date 2022/11/25 10:25
+     */
+    private void decayIfNecessary() {
+        long now = System.nanoTime();
+        long next = nextDecayTime.get();
+        if (now - next < 0 || !decaying.compareAndSet(false, true)) return;
+
+        try {
+            if (!nextDecayTime.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(decayInterval))) return;
+
+            for (int i = 0; i < sketch.length(); i++) {
+                long v = sketch.get(i);
+                if (v != 0) sketch.set(i, v >> 1);
+            }
+
+            int rate = Math.max(sampleRate, 1);
+            long coolThreshold = hotThreshold / 2;
+            for (HotKey hotKey : hotKeys.values()) {
+                long estimate = estimate(hotKey.key) * rate;
+                if (estimate < coolThreshold) {
+                    hotKeys.remove(hotKey.key, hotKey);
+                    localCopies.remove(hotKey.key);
+                    if (log.isDebugEnabled()) log.debug("Hot key cooled down: {}", hotKey.key);
+                } else {
+                    hotKey.count = estimate;
+                }
+            }
+        } finally {
+            decaying.set(false);
+        }
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 设置采样率，每N次读取记录一次，1为记录所有读取，默认为16
+     *
+     * @param sampleRate 采样率
+     * @author Tequila
+     * @date 2022/11/25 10:30
+     */
+    public void setSampleRate(int sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    public long getHotThreshold() {
+        return hotThreshold;
+    }
+
+    public void setHotThreshold(long hotThreshold) {
+        this.hotThreshold = hotThreshold;
+    }
+
+    public long getDecayInterval() {
+        return decayInterval;
+    }
+
+    public void setDecayInterval(long decayInterval) {
+        this.decayInterval = decayInterval;
+    }
+
+    public long getLocalTtl() {
+        return localTtl;
+    }
+
+    public void setLocalTtl(long localTtl) {
+        this.localTtl = localTtl;
+    }
+
+    public int getMaxHotKeys() {
+        return maxHotKeys;
+    }
+
+    public void setMaxHotKeys(int maxHotKeys) {
+        this.maxHotKeys = maxHotKeys;
+    }
+
+    /**
+     * 热点key
+     *
+     * @author Tequila
+     * @create 2022/11/25 09:35
+     **/
+    public static final class HotKey {
+
+        private final String key;
+
+        private final String prefix;
+
+        private final String id;
+
+        /** 估算的读取次数 */
+        private volatile long count;
+
+        private HotKey(String key, String prefix, String id, long count) {
+            this.key = key;
+            this.prefix = prefix;
+            this.id = id;
+            this.count = count;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%d)", key, count);
+        }
+    }
+
+    /**
+     * 本地副本
+     *
+     * @author Tequila
+     * @create 2022/11/25 09:40
+     **/
+    private static final class LocalCopy {
+
+        private final String value;
+
+        /** 过期时间（nanoTime） */
+        private final long expireTime;
+
+        private LocalCopy(String value, long expireTime) {
+            this.value = value;
+            this.expireTime = expireTime;
+        }
+    }
+}
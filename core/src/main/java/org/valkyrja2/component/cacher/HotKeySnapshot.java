@@ -0,0 +1,114 @@
+/*
+ * PROJECT valkyrja2
+ * core/HotKeySnapshot.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.valkyrja2.util.Jackson2Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 热点key快照<br>
+ * 将{@link HotKeyDetector}检测到的热点key按照prefix保存到文件中（json格式：{"prefix": ["id1", "id2"]}），
+ * 进程重启之后作为{@link CacheWarmer}的预热数据来源。
+ * <pre>
+ *      HotKeySnapshot snapshot = new HotKeySnapshot(new File("/data/app/hot-keys.json"));
+ *      snapshot.save();  // 在关闭前或者定时保存
+ *      cacheWarmer.register(cacher, snapshot, loader);
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/11/28 10:00
+ **/
+public class HotKeySnapshot implements CacheWarmer.IdSource {
+
+    private static final Logger log = LoggerFactory.getLogger(HotKeySnapshot.class);
+
+    /** 快照数据类型 */
+    private static final TypeReference<LinkedHashMap<String, List<String>>> SNAPSHOT_TYPE =
+            new TypeReference<LinkedHashMap<String, List<String>>>() { };
+
+    /** 快照文件 */
+    private final File file;
+
+    /** 读取后的快照数据 */
+    private volatile Map<String, List<String>> snapshot;
+
+    public HotKeySnapshot(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 将当前的热点key保存到快照文件
+     * 先写入临时文件再替换，避免写入过程中进程退出导致快照损坏
+     *
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/11/28 10:10
+     */
+    public void save() throws IOException {
+        Map<String, List<String>> data = new LinkedHashMap<>();
+        for (HotKeyDetector.HotKey hotKey : HotKeyDetector.getInstance().getHotKeys()) {
+            data.computeIfAbsent(hotKey.getPrefix(), k -> new ArrayList<>()).add(hotKey.getId());
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        Files.write(tmp.toPath(), Jackson2Utils.obj2json(data).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        this.snapshot = data;
+        log.info("Save hot key snapshot to {}, prefixes: {}", file, data.size());
+    }
+
+    @Override
+    public List<String> topIds(String prefix, int limit) {
+        List<String> ids = load().get(prefix);
+        if (ids == null) return Collections.emptyList();
+
+        return ids.size() > limit ? ids.subList(0, limit) : ids;
+    }
+
+    /**
+     * 读取快照文件，文件不存在或者读取失败时返回空的快照
+     *
+     * @return {@link Map }<{@link String }, {@link List }<{@link String }>>
+     * @author Tequila
+     * @date 2022/11/28 10:20
+     */
+    private Map<String, List<String>> load() {
+        Map<String, List<String>> data = this.snapshot;
+        if (data != null) return data;
+
+        if (!file.exists()) {
+            data = Collections.emptyMap();
+        } else {
+            try {
+                data = Jackson2Utils.getObjectMapper().readValue(file, SNAPSHOT_TYPE);
+            } catch (IOException e) {
+                log.warn("Read hot key snapshot {} error.", file, e);
+                data = Collections.emptyMap();
+            }
+        }
+        this.snapshot = data;
+
+        return data;
+    }
+
+    public File getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * PROJECT valkyrja2
+ * core/NamespaceGeneration.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存命名空间版本（generation）管理<br>
+ * 每个prefix在redis中保存一个版本号，开启后缓存key中会带上当前版本号（prefix:g{n}:id），
+ * 递增版本号之后，旧版本的key不会再被读取，相当于一次性失效整个prefix下的所有缓存，无需SCAN + DEL。<br>
+ * 版本号在本地缓存，每隔{@link #getRefreshInterval()}毫秒从redis重新读取一次，
+ * 因此其它进程递增版本号之后，本进程最多延迟一个刷新间隔才能感知到。<br>
+ * 注意：旧版本的key依赖到期时间自动清理，永久保存（{@link DataCacher#NO_EXPIRE}）的key不会被回收。
+ *
+ * @author Tequila
+ * @create 2022/11/24 10:00
+ **/
+public class NamespaceGeneration {
+
+    private static final Logger log = LoggerFactory.getLogger(NamespaceGeneration.class);
+    private static volatile NamespaceGeneration _instance;
+    private NamespaceGeneration() { }
+    public static NamespaceGeneration getInstance() {
+        if (_instance == null) {
+            synchronized (NamespaceGeneration.class) {
+                if (_instance == null) {
+                    _instance = new NamespaceGeneration();
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /** 版本号key前缀 */
+    public static final String GENERATION_KEY_PREFIX = "$gen:";
+
+    /** 默认刷新间隔（毫秒） */
+    private static final long DEFAULT_REFRESH_INTERVAL = 5000L;
+
+    /** 本地缓存的版本号，key为prefix */
+    private final ConcurrentHashMap<String, Generation> generations = new ConcurrentHashMap<>();
+
+    /** 刷新间隔（毫秒） */
+    private volatile long refreshInterval = DEFAULT_REFRESH_INTERVAL;
+
+    /**
+     * 获取prefix当前的版本号
+     * 本地缓存没有过期时直接返回，否则从redis中读取；redis读取失败时继续使用本地缓存的版本号
+     *
+     * @param redisTemplate redisTemplate
+     * @param prefix        前缀
+     * @return long
+     * @author Tequila
+     * @date 2022/11/24 10:10
+     */
+    public long get(StringRedisTemplate redisTemplate, String prefix) {
+        long now = System.nanoTime();
+        Generation g = generations.get(prefix);
+        if (g != null && now - g.loadTime < TimeUnit.MILLISECONDS.toNanos(refreshInterval)) {
+            return g.value;
+        }
+
+        long value;
+        try {
+            String s = redisTemplate.opsForValue().get(generationKey(prefix));
+            value = s != null ? Long.parseLong(s) : 0L;
+        } catch (RuntimeException e) {
+            if (g == null) throw e;
+
+            log.warn("Refresh namespace generation of [{}] error, use local generation {}.", prefix, g.value, e);
+            value = g.value;
+        }
+        generations.put(prefix, new Generation(value, now));
+
+        return value;
+    }
+
+    /**
+     * 递增prefix的版本号，使该prefix下的所有缓存失效
+     *
+     * @param redisTemplate redisTemplate
+     * @param prefix        前缀
+     * @return long 新的版本号
+     * @author Tequila
+     * @date 2022/11/24 10:20
+     */
+    public long increment(StringRedisTemplate redisTemplate, String prefix) {
+        Long value = redisTemplate.opsForValue().increment(generationKey(prefix));
+        long gen = value != null ? value : 0L;
+        generations.put(prefix, new Generation(gen, System.nanoTime()));
+        log.info("Namespace [{}] generation increased to {}.", prefix, gen);
+
+        return gen;
+    }
+
+    /**
+     * 清除本地缓存的版本号，下次使用时从redis重新读取
+     *
+     * @author Tequila
+     * @date 2022/11/24 10:25
+     */
+    public void clear() {
+        generations.clear();
+    }
+
+    /**
+     * 构建版本号key
+     *
+     * @param prefix 前缀
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/11/24 10:28
+     */
+    private String generationKey(String prefix) {
+        return GENERATION_KEY_PREFIX + prefix;
+    }
+
+    public long getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(long refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * 本地缓存的版本号
+     *
+     * @author Tequila
+     * @create 2022/11/24 10:05
+     **/
+    private static final class Generation {
+
+        private final long value;
+
+        /** 读取时间（nanoTime） */
+        private final long loadTime;
+
+        private Generation(long value, long loadTime) {
+            this.value = value;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -8,15 +8,26 @@
 
 package org.valkyrja2.component.cacher;
 
-import org.springframework.data.redis.core.BoundSetOperations;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
 import org.valkyrja2.component.cacher.SetDataCacher.SetCacheData;
 import org.valkyrja2.component.cacher.bean.AbstractCacheData;
 import org.valkyrja2.component.cacher.bean.ArrayCacheData;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Set缓存对象
@@ -28,12 +39,25 @@ import java.util.Set;
  *      cacher.valueExists("1");
  *      cacher.valueExists("3");
  * </pre>
+ * 成员数量很大的set不要使用{@link #load()}，而是使用基于SSCAN的{@link #streamValues(String)}或者{@link #forEachValue(String, Consumer)}分批读取，
+ * 批量判断成员是否存在使用{@link #valueExistsAll(String, Collection)}（SMISMEMBER，需要redis 6.2以上）
+ * <pre>
+ *      try (Stream&lt;String&gt; values = cacher.streamValues("key")) {
+ *          values.forEach(v -&gt; ...);
+ *      }
+ * </pre>
  *
  * @author: Tequila
  * @create: 2022/04/15 19:44
  **/
 public class SetDataCacher extends AbstractArrayDataCacher<SetCacheData> {
 
+    /** 默认SSCAN每次返回的数量 */
+    public static final int DEFAULT_SCAN_COUNT = 100;
+
+    /** SSCAN每次返回的数量（COUNT参数） */
+    private int scanCount = DEFAULT_SCAN_COUNT;
+
     public SetDataCacher() {
     }
 
@@ -63,6 +87,144 @@ public class SetDataCacher extends AbstractArrayDataCacher<SetCacheData> {
         );
     }
 
+    /**
+     * 批量判断set中数据是否存在
+     * 本地已经存在的值不再查询redis，其余的值使用一次SMISMEMBER请求判断
+     *
+     * @param id     id
+     * @param values 值
+     * @return {@link Map }<{@link String }, {@link Boolean }> 按照values的顺序返回每个值是否存在
+     * @author Tequila
+     * @date 2022/11/23 10:20
+     */
+    public Map<String, Boolean> valueExistsAll(String id, Collection<String> values) {
+        Map<String, Boolean> result = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+        List<String> remoteValues = new ArrayList<>(values.size());
+        for (String value : values) {
+            if (this.getData() != null && this.getData().valueExists(value)) {
+                result.put(value, Boolean.TRUE);
+            } else {
+                result.put(value, Boolean.FALSE);
+                remoteValues.add(value);
+            }
+        }
+        if (remoteValues.isEmpty()) return result;
+
+        String key = buildKey(id);
+        Map<Object, Boolean> exists = getRedisTemplate().opsForSet().isMember(key, remoteValues.toArray());
+        if (exists != null) {
+            for (String value : remoteValues) {
+                if (Boolean.TRUE.equals(exists.get(value))) {
+                    result.put(value, Boolean.TRUE);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 批量判断set中数据是否存在
+     *
+     * @param values 值
+     * @return {@link Map }<{@link String }, {@link Boolean }>
+     * @author Tequila
+     * @date 2022/11/23 10:25
+     */
+    public Map<String, Boolean> valueExistsAll(Collection<String> values) {
+        if (this.getData() != null) {
+            return valueExistsAll(this.getData().getId(), values);
+        } else {
+            Map<String, Boolean> result = new LinkedHashMap<>(values.size() * 4 / 3 + 1);
+            for (String value : values) {
+                result.put(value, Boolean.FALSE);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 使用SSCAN分批遍历set中的成员
+     * 返回的cursor使用完成后必须关闭，遍历过程中set被修改时，成员可能会重复返回
+     *
+     * @param id    id
+     * @param count 每次SSCAN返回的数量（COUNT参数）
+     * @return {@link Cursor }<{@link String }>
+     * @author Tequila
+     * @date 2022/11/23 10:30
+     */
+    public Cursor<String> scanValues(String id, int count) {
+        String key = buildKey(id);
+        return getRedisTemplate().opsForSet().scan(key, ScanOptions.scanOptions().count(count).build());
+    }
+
+    /**
+     * 使用SSCAN分批遍历set中的成员
+     *
+     * @param id id
+     * @return {@link Cursor }<{@link String }>
+     * @author Tequila
+     * @date 2022/11/23 10:32
+     */
+    public Cursor<String> scanValues(String id) {
+        return scanValues(id, scanCount);
+    }
+
+    /**
+     * 以Stream的方式分批读取set中的成员，不会一次性将全部成员加载到内存
+     * 返回的Stream使用完成后必须关闭（建议使用try-with-resources），以释放底层的cursor
+     *
+     * @param id    id
+     * @param count 每次SSCAN返回的数量（COUNT参数）
+     * @return {@link Stream }<{@link String }>
+     * @author Tequila
+     * @date 2022/11/23 10:35
+     */
+    public Stream<String> streamValues(String id, int count) {
+        Cursor<String> cursor = scanValues(id, count);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.NONNULL), false)
+                .onClose(cursor::close);
+    }
+
+    /**
+     * 以Stream的方式分批读取set中的成员
+     *
+     * @param id id
+     * @return {@link Stream }<{@link String }>
+     * @author Tequila
+     * @date 2022/11/23 10:38
+     */
+    public Stream<String> streamValues(String id) {
+        return streamValues(id, scanCount);
+    }
+
+    /**
+     * 分批遍历set中的成员
+     *
+     * @param id       id
+     * @param count    每次SSCAN返回的数量（COUNT参数）
+     * @param consumer 处理方法
+     * @author Tequila
+     * @date 2022/11/23 10:40
+     */
+    public void forEachValue(String id, int count, Consumer<String> consumer) {
+        try (Cursor<String> cursor = scanValues(id, count)) {
+            cursor.forEachRemaining(consumer);
+        }
+    }
+
+    /**
+     * 分批遍历set中的成员
+     *
+     * @param id       id
+     * @param consumer 处理方法
+     * @author Tequila
+     * @date 2022/11/23 10:42
+     */
+    public void forEachValue(String id, Consumer<String> consumer) {
+        forEachValue(id, scanCount, consumer);
+    }
+
     @Override
     protected boolean cacheValue(String id, String value) {
         String key = buildKey(id);
@@ -86,26 +248,62 @@ public class SetDataCacher extends AbstractArrayDataCacher<SetCacheData> {
     public SetCacheData load(String id) {
         SetCacheData data = new SetCacheData();
 
+        /* 空的set在redis中即为不存在，因此不再单独执行EXISTS，读取成员和延长到期时间在一次请求中完成 */
+        CacherMetrics metrics = metrics();
+        long start = System.nanoTime();
         String key = buildKey(id);
-        if (exists(id)) {
-            BoundSetOperations<String, String> opts = getRedisTemplate().boundSetOps(key);
-            Set<String> members = opts.members();
-            if (members != null) {
-                data.values().addAll(members);
-            }
+        Collection<String> members;
+        try {
+            members = readMembersAndTouch(key);
+        } catch (RuntimeException e) {
+            if (metrics != null) metrics.recordError();
+            throw e;
+        }
+        if (metrics != null) {
+            metrics.recordRead(members != null && !members.isEmpty(), System.nanoTime() - start, payloadSize(members));
+        }
+        if (members != null && !members.isEmpty()) {
+            data.values().addAll(members);
             setData(data);
-
-            handleAutoTouch();
+            setLastExists(true);
+        } else {
+            setLastExists(false);
         }
 
         return data;
     }
 
+    /**
+     * 读取set的全部成员，并根据autoTouch配置在同一次请求中延长到期时间
+     *
+     * @param key key
+     * @return {@link Collection }<{@link String }>
+     * @author Tequila
+     * @date 2022/11/21 11:05
+     */
+    protected Collection<String> readMembersAndTouch(String key) {
+        long touchExpire = autoTouchExpire();
+        if (touchExpire == NO_EXPIRE) {
+            return getRedisTemplate().opsForSet().members(key);
+        } else {
+            return getRedisTemplate().execute(CacherScripts.MEMBERS_AND_TOUCH,
+                    Collections.singletonList(key), String.valueOf(touchExpire));
+        }
+    }
+
     @Override
     protected Class<SetCacheData> getDataClass() {
         return SetCacheData.class;
     }
 
+    public int getScanCount() {
+        return scanCount;
+    }
+
+    public void setScanCount(int scanCount) {
+        this.scanCount = scanCount;
+    }
+
     /**
      * Set缓存数据
      *
@@ -8,11 +8,15 @@
 
 package org.valkyrja2.component.cacher;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.core.BoundValueOperations;
 import org.valkyrja2.component.cacher.bean.AbstractCacheData;
 import org.valkyrja2.component.cacher.bean.CacheData;
 import org.valkyrja2.util.ClassUtils;
 
+import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -23,6 +27,8 @@ import java.util.concurrent.TimeUnit;
  **/
 public class ValueDataCacher<T extends CacheData> extends DataCacher<T> {
 
+    private static final Logger log = LoggerFactory.getLogger(ValueDataCacher.class);
+
     /** 设置模式 */
     public static final int MODE_NORMAL = 0;  // use set
     public static final int MODE_NX     = 1;  // use set ... nx, 这是默认模式
@@ -31,6 +37,12 @@ public class ValueDataCacher<T extends CacheData> extends DataCacher<T> {
     /** 默认模式 */
     protected int mode = MODE_NX;
 
+    /**
+     * redis是否支持GETEX命令（redis 6.2+）
+     * 第一次执行GETEX返回unknown command后，切换为使用lua脚本完成读取并延长到期时间
+     */
+    private static volatile boolean getExSupported = true;
+
     public ValueDataCacher() {
         super();
         init(MODE_NX);
@@ -154,25 +166,47 @@ public class ValueDataCacher<T extends CacheData> extends DataCacher<T> {
      * @date 2022/04/06 21:28
      */
     private boolean cache(int mode) {
-        String key = buildKey();
+        CacherMetrics metrics = metrics();
+        String key = buildKey();  // 可能需要读取命名空间版本，不计入序列化时间
+        long start = System.nanoTime();
         String value = getData().value();
+        if (metrics != null) metrics.recordSerialization(System.nanoTime() - start);
+        if (isHotKeyDetection()) {
+            HotKeyDetector.getInstance().invalidate(key);
+        }
+        if (isWriteBehind()) {
+            if (mode == MODE_NORMAL) {  // 只有覆盖写入可以延迟合并，nx和xx模式需要立即判断redis中的数据
+                WriteBehindManager.getInstance().write(key, value, this.expire());
+                if (metrics != null) metrics.recordWrite(System.nanoTime() - start, value.length());
+                return true;
+            } else {
+                WriteBehindManager.getInstance().flush(key);  // 先写入缓冲区中的值，nx/xx才能按最新的数据判断
+            }
+        }
+
         BoundValueOperations<String, String> opts = getRedisTemplate().boundValueOps(key);
 
         Boolean result;
-        switch (mode) {
-            case MODE_NORMAL:
-                opts.set(value, this.expire(), TimeUnit.SECONDS);
-                result = Boolean.TRUE;
-                break;
-            case MODE_NX:
-                result = opts.setIfAbsent(value, this.expire(), TimeUnit.SECONDS);
-                break;
-            case MODE_XX:
-                result = opts.setIfPresent(value, this.expire(), TimeUnit.SECONDS);
-                break;
-            default:
-                throw new IllegalStateException(String.format("mode `%d` is error", this.mode));
+        try {
+            switch (mode) {
+                case MODE_NORMAL:
+                    opts.set(value, this.expire(), TimeUnit.SECONDS);
+                    result = Boolean.TRUE;
+                    break;
+                case MODE_NX:
+                    result = opts.setIfAbsent(value, this.expire(), TimeUnit.SECONDS);
+                    break;
+                case MODE_XX:
+                    result = opts.setIfPresent(value, this.expire(), TimeUnit.SECONDS);
+                    break;
+                default:
+                    throw new IllegalStateException(String.format("mode `%d` is error", this.mode));
+            }
+        } catch (RuntimeException e) {
+            if (metrics != null) metrics.recordError();
+            throw e;
         }
+        if (metrics != null) metrics.recordWrite(System.nanoTime() - start, value.length());
 
         return Boolean.TRUE.equals(result);
     }
@@ -202,16 +236,103 @@ public class ValueDataCacher<T extends CacheData> extends DataCacher<T> {
     public T load(String id) {
         T data;
 
+        CacherMetrics metrics = metrics();
+        long start = System.nanoTime();
         String key = buildKey(id);
-        String json = getRedisTemplate().opsForValue().get(key);
+        String json;
+        try {
+            json = isHotKeyDetection() ? readHotKey(id, key) : readAndTouch(key);
+        } catch (RuntimeException e) {
+            if (metrics != null) metrics.recordError();
+            throw e;
+        }
+        if (metrics != null) metrics.recordRead(json != null, System.nanoTime() - start, json != null ? json.length() : 0);
+
         Class<T> klass = ClassUtils.getClassGenericType(this.getClass(), 0);
         if (json != null) {
+            long parseStart = System.nanoTime();
             data = AbstractCacheData.of(json, klass);
+            if (metrics != null) metrics.recordSerialization(System.nanoTime() - parseStart);
         } else {
             data = null;
         }
         this.setData(data);
-        handleAutoTouch();  // 根据配置执行touch()
+        setLastExists(json != null);  // 读取的同时得到了是否存在的结果，之后的exists()无需再访问redis
         return data;
     }
+
+    /**
+     * 读取数据，并根据autoTouch配置在同一次请求中延长到期时间
+     * 优先使用GETEX，如果redis版本不支持，则使用lua脚本
+     *
+     * @param key key
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/11/21 10:45
+     */
+    protected String readAndTouch(String key) {
+        if (isWriteBehind()) {
+            String pendingValue = WriteBehindManager.getInstance().pendingValue(key);
+            if (pendingValue != null) return pendingValue;  // 优先读取尚未写入redis的值
+        }
+
+        long touchExpire = autoTouchExpire();
+        if (touchExpire == NO_EXPIRE) {
+            return getRedisTemplate().opsForValue().get(key);
+        }
+
+        if (getExSupported) {
+            try {
+                return getRedisTemplate().opsForValue().getAndExpire(key, touchExpire, TimeUnit.SECONDS);
+            } catch (DataAccessException e) {
+                if (!isUnknownCommand(e)) throw e;
+
+                getExSupported = false;
+                log.info("Redis server does not support GETEX, use lua script instead.");
+            }
+        }
+
+        return getRedisTemplate().execute(CacherScripts.GET_AND_TOUCH,
+                Collections.singletonList(key), String.valueOf(touchExpire));
+    }
+
+    /**
+     * 读取数据，热点key优先读取本地副本
+     *
+     * @param id  id
+     * @param key key
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/11/25 10:40
+     */
+    private String readHotKey(String id, String key) {
+        HotKeyDetector detector = HotKeyDetector.getInstance();
+        if (!detector.record(getPrefix(), id, key)) {
+            return readAndTouch(key);
+        }
+
+        String json = detector.getLocal(key);
+        if (json == null) {
+            json = readAndTouch(key);
+            detector.putLocal(key, json);
+        }
+        return json;
+    }
+
+    /**
+     * 判断错误是否是redis不支持该命令
+     *
+     * @param e e
+     * @return boolean
+     * @author Tequila
+     * @date 2022/11/21 10:50
+     */
+    private static boolean isUnknownCommand(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t.getMessage() != null && t.getMessage().toLowerCase().contains("unknown command")) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,410 @@
+/*
+ * PROJECT valkyrja2
+ * core/WriteBehindManager.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.cacher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.valkyrja2.component.redis.RedisFactory;
+import org.valkyrja2.util.NamedThreadFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 缓存延迟写入管理（write-behind）<br>
+ * 数据先写入本地缓冲区，同一个key只保留最后一次写入的值（last-write-wins），
+ * 再由后台线程按时间间隔或者待写入数量，批量使用pipeline写入redis。<br>
+ * 适用于可以容忍少量数据丢失的高频更新数据（例如计数器、会话数据），进程异常退出时未刷新的数据会丢失。<br>
+ * 默认通过ShutdownHook在进程退出时刷新，使用spring时建议配置destroy-method="shutdown"，以便在redis连接关闭之前完成刷新；
+ * shutdown时会移除ShutdownHook，应用重新部署时不会残留线程。shutdown之后的写入直接同步写入redis。
+ * <pre>
+ *      ValueDataCacher&lt;Counter&gt; cacher = new ValueDataCacher&lt;&gt;(counter, ValueDataCacher.MODE_NORMAL);
+ *      cacher.setWriteBehind(true);
+ *      cacher.update();  // 仅写入本地缓冲区
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/11/22 09:30
+ **/
+public class WriteBehindManager {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindManager.class);
+    private static volatile WriteBehindManager _instance;
+    private WriteBehindManager() { init(); }
+    public static WriteBehindManager getInstance() {
+        if (_instance == null) {
+            synchronized (WriteBehindManager.class) {
+                if (_instance == null) {
+                    _instance = new WriteBehindManager();
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /** 默认刷新间隔（毫秒） */
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+
+    /** 默认每批写入数量 */
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** 默认触发立即刷新的待写入数量 */
+    private static final int DEFAULT_FLUSH_THRESHOLD = 2000;
+
+    /** 停止等待时间（秒） */
+    private static final long STOP_WAIT_TIME = 30L;
+
+    /** 线程名字 */
+    public static final String THREAD_NAME = "WriteBehindManager";
+
+    /** 待写入数据，key为redis key */
+    private final ConcurrentHashMap<String, PendingWrite> pending = new ConcurrentHashMap<>();
+
+    /** 是否正在刷新 */
+    private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+    /** 是否已经提交了立即刷新的任务，避免高并发写入时重复提交 */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    /** 刷新线程 */
+    private volatile ScheduledExecutorService flushExecutor;
+
+    /** 进程退出时刷新的ShutdownHook */
+    private volatile Thread shutdownHook;
+
+    /** 是否已经关闭 */
+    private volatile boolean closed;
+
+    /** 刷新间隔（毫秒） */
+    private long flushInterval;
+
+    /** 每批写入数量 */
+    private int batchSize;
+
+    /** 触发立即刷新的待写入数量 */
+    private int flushThreshold;
+
+    /** RedisTemplate */
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 初始化
+     *
+     * @author Tequila
+     * @date 2022/11/22 09:35
+     */
+    private void init() {
+        this.flushInterval = DEFAULT_FLUSH_INTERVAL;
+        this.batchSize = DEFAULT_BATCH_SIZE;
+        this.flushThreshold = DEFAULT_FLUSH_THRESHOLD;
+    }
+
+    /**
+     * 写入缓冲区
+     * 同一个key在刷新之前的多次写入只保留最后一次，已经关闭时直接同步写入
+     *
+     * @param key    key
+     * @param value  值
+     * @param expire 到期时间（秒），{@link DataCacher#NO_EXPIRE}为永久
+     * @author Tequila
+     * @date 2022/11/22 09:40
+     */
+    public void write(String key, String value, long expire) {
+        if (closed) {
+            writeNow(new PendingWrite(key, value, expire));
+            return;
+        }
+        ensureStarted();
+
+        pending.put(key, new PendingWrite(key, value, expire));
+        if (closed) {
+            flush(key);  // 写入缓冲区的同时被关闭，最后一次刷新可能已经结束
+            return;
+        }
+        if (pending.size() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(() -> {
+                    flushScheduled.set(false);  // 开始刷新后允许提交下一次
+                    flush();
+                });
+            } catch (RejectedExecutionException e) {
+                // 已经关闭，直接同步写入
+                flushScheduled.set(false);
+                flush();
+            }
+        }
+    }
+
+    /**
+     * 获取缓冲区中尚未写入redis的值
+     *
+     * @param key key
+     * @return {@link String } 如果没有待写入的数据，则返回null
+     * @author Tequila
+     * @date 2022/11/22 09:45
+     */
+    public String pendingValue(String key) {
+        PendingWrite w = pending.get(key);
+        return w != null ? w.value : null;
+    }
+
+    /**
+     * 立即将一个key待写入的数据同步写入redis<br>
+     * 用于nx/xx等需要根据redis中的数据判断的操作，保证判断之前缓冲区中的值已经写入
+     *
+     * @param key key
+     * @author Tequila
+     * @date 2022/12/09 16:00
+     */
+    public void flush(String key) {
+        PendingWrite w = pending.get(key);
+        if (w == null) return;
+
+        writeNow(w);
+        pending.remove(key, w);  // 期间被更新的值留到下一次刷新
+    }
+
+    /**
+     * 同步写入一个值
+     *
+     * @param w 待写入数据
+     * @author Tequila
+     * @date 2022/12/09 17:10
+     */
+    private void writeNow(PendingWrite w) {
+        if (w.expire == DataCacher.NO_EXPIRE) {
+            getRedisTemplate().opsForValue().set(w.key, w.value);
+        } else {
+            getRedisTemplate().opsForValue().set(w.key, w.value, w.expire, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 将缓冲区中的数据批量写入redis
+     * 写入成功后才从缓冲区删除，写入过程中被再次更新的数据会保留到下一次刷新
+     *
+     * @author Tequila
+     * @date 2022/11/22 09:50
+     */
+    public void flush() {
+        if (!flushing.compareAndSet(false, true)) return;  // 已经有线程在刷新
+
+        try {
+            List<PendingWrite> batch = new ArrayList<>(batchSize);
+            for (PendingWrite w : pending.values()) {
+                batch.add(w);
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+            }
+        } catch (Exception e) {
+            log.warn("WriteBehindManager flush error, {} pending writes will retry later.", pending.size(), e);
+        } finally {
+            flushing.set(false);
+        }
+    }
+
+    /**
+     * 使用pipeline写入一批数据
+     *
+     * @param batch 批
+     * @author Tequila
+     * @date 2022/11/22 09:55
+     */
+    private void writeBatch(List<PendingWrite> batch) {
+        getRedisTemplate().executePipelined((RedisCallback<Object>) connection -> {
+            for (PendingWrite w : batch) {
+                byte[] key = w.key.getBytes(StandardCharsets.UTF_8);
+                byte[] value = w.value.getBytes(StandardCharsets.UTF_8);
+                if (w.expire == DataCacher.NO_EXPIRE) {
+                    connection.stringCommands().set(key, value);
+                } else {
+                    connection.stringCommands().setEx(key, w.expire, value);
+                }
+            }
+            return null;
+        });
+
+        for (PendingWrite w : batch) {
+            pending.remove(w.key, w);  // 只删除已经写入的值，期间被更新的值留到下一次刷新
+        }
+        if (log.isDebugEnabled()) log.debug("WriteBehindManager flush {} writes.", batch.size());
+    }
+
+    /**
+     * 启动刷新线程
+     *
+     * @author Tequila
+     * @date 2022/11/22 10:00
+     */
+    private void ensureStarted() {
+        if (flushExecutor == null) {
+            synchronized (this) {
+                if (flushExecutor == null) {
+                    NamedThreadFactory threadFactory = new NamedThreadFactory(THREAD_NAME);
+                    ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = threadFactory.newThread(r);
+                        t.setDaemon(true);  // 不阻止进程退出，退出时由ShutdownHook完成最后一次刷新
+                        return t;
+                    });
+                    executor.scheduleWithFixedDelay(this::flush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+                    Thread hook = new Thread(this::shutdown, THREAD_NAME + "-shutdown");
+                    Runtime.getRuntime().addShutdownHook(hook);
+                    shutdownHook = hook;
+                    flushExecutor = executor;
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止刷新线程，移除ShutdownHook，并将剩余的数据全部写入redis
+     *
+     * @author Tequila
+     * @date 2022/11/22 10:05
+     */
+    public void shutdown() {
+        closed = true;
+        removeShutdownHook();
+
+        ScheduledExecutorService executor = this.flushExecutor;
+        if (executor != null && !executor.isShutdown()) {
+            log.info("========== 关闭缓存延迟写入 - 开始，待写入 {}", pending.size());
+            executor.shutdown();
+            try {
+                if (!executor.awaitTermination(STOP_WAIT_TIME, TimeUnit.SECONDS)) {
+                    log.info("========== 关闭缓存延迟写入 - 等待超时");
+                }
+            } catch (InterruptedException e) {
+                log.info("========== 关闭缓存延迟写入 - 被中断", e);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        flush();
+        log.info("========== 关闭缓存延迟写入 - 结束，剩余 {}", pending.size());
+    }
+
+    /**
+     * 移除ShutdownHook，由ShutdownHook自身调用或者进程正在退出时忽略
+     *
+     * @author Tequila
+     * @date 2022/12/09 17:12
+     */
+    private void removeShutdownHook() {
+        Thread hook = this.shutdownHook;
+        if (hook == null || hook == Thread.currentThread()) return;
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(hook);
+        } catch (IllegalStateException e) {
+            // 进程正在退出
+        }
+        this.shutdownHook = null;
+    }
+
+    /**
+     * 待写入数量
+     *
+     * @return int
+     * @author Tequila
+     * @date 2022/11/22 10:10
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 获取RedisTemplate
+     *
+     * @return {@link StringRedisTemplate }
+     * @author Tequila
+     * @date 2022/11/22 10:12
+     */
+    private StringRedisTemplate getRedisTemplate() {
+        StringRedisTemplate locRedisTemplate = this.redisTemplate;
+        if (locRedisTemplate == null) {
+            synchronized (this) {
+                locRedisTemplate = this.redisTemplate;
+                if (locRedisTemplate == null) {
+                    this.redisTemplate = locRedisTemplate = RedisFactory.getStringRedisTemplate();
+                }
+            }
+        }
+
+        return locRedisTemplate;
+    }
+
+    public void setRedisTemplate(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    public long getFlushInterval() {
+        return flushInterval;
+    }
+
+    /**
+     * 设置刷新间隔（毫秒），需要在第一次写入之前设置
+     *
+     * @param flushInterval 刷新间隔
+     * @author Tequila
+     * @date 2022/11/22 10:15
+     */
+    public void setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getFlushThreshold() {
+        return flushThreshold;
+    }
+
+    public void setFlushThreshold(int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * 待写入数据
+     *
+     * @author Tequila
+     * @create 2022/11/22 09:38
+     **/
+    private static final class PendingWrite {
+
+        private final String key;
+
+        private final String value;
+
+        private final long expire;
+
+        private PendingWrite(String key, String value, long expire) {
+            this.key = key;
+            this.value = value;
+            this.expire = expire;
+        }
+    }
+}
@@ -10,13 +10,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.NamedThreadLocal;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.valkyrja2.component.idempotent.exception.DuplicateRequestRuntimeException;
 import org.valkyrja2.component.idempotent.exception.IdempotentRuntimeException;
+import org.valkyrja2.component.idempotent.exception.ReplayResponseRuntimeException;
 import org.valkyrja2.mvc.spring.SpringUtils;
 import org.valkyrja2.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Stack;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 业务逻辑幂等管理工具
@@ -30,6 +40,19 @@ public class BizIdempotentManager {
 	/** redis key 前缀 */
 	private static final String BIZ_IDEMPOTENT_PREFIX = "$it:biz:";
 
+	/**
+	 * 同时获取多个令牌，只要有一个已经存在则全部不设置
+	 * KEYS 令牌key, ARGV[1] 到期时间（毫秒）
+	 * 返回0表示全部获取成功，否则返回第一个已经存在的key的序号（从1开始）
+	 */
+	private static final RedisScript<Long> ACQUIRE_ALL_SCRIPT = new DefaultRedisScript<>(
+			"for i = 1, #KEYS do " +
+			"if redis.call('EXISTS', KEYS[i]) == 1 then return i end " +
+			"end " +
+			"for i = 1, #KEYS do redis.call('SET', KEYS[i], '', 'PX', ARGV[1]) end " +
+			"return 0",
+			Long.class);
+
 	/* ========== Singleton define ========== */
     private static volatile BizIdempotentManager _instance;
     private BizIdempotentManager() {
@@ -54,12 +77,31 @@ public class BizIdempotentManager {
     /** 基于当前线程的token，每个线程只能有一个 */
     private ThreadLocal<Stack<String>> threadToken;
 
+	/** 当前线程持有令牌的获取时间和到期时间（nanoTime/纳秒），用于统计持有时间 */
+	private ThreadLocal<Map<String, long[]>> threadTokenHold;
+
 	/** RedisTemplate */
 	private StringRedisTemplate redisTemplate;
 
 	/** 默认到期 */
 	private long defaultExpire;
 
+	/** 是否开启进程内快速判断，同一个进程内的重复请求无需访问redis即可拒绝 */
+	private boolean localFastPath;
+
+	/** 进程内令牌 */
+	private final LocalTokenRegistry localTokens = new LocalTokenRegistry();
+
+	/**
+	 * 响应重放模式
+	 * 开启后，如果第一次请求已经通过{@link #complete(String, Object)}保存了响应，
+	 * 重复请求抛出携带该响应的{@link ReplayResponseRuntimeException}
+	 */
+	private boolean replayMode;
+
+	/** 响应保存时间（秒） */
+	private long replayExpire;
+
 	/**
 	 * 初始化
 	 *
@@ -70,7 +112,9 @@ public class BizIdempotentManager {
 		log.debug("BizIdempotentManager init.");
 
         threadToken = new NamedThreadLocal<>(BizIdempotentManager.class.getName());
+        threadTokenHold = new NamedThreadLocal<>(BizIdempotentManager.class.getName() + ".hold");
         this.defaultExpire = DEFAULT_EXPIRE;
+        this.replayExpire = DEFAULT_EXPIRE;
     }
 
 	/**
@@ -86,11 +130,38 @@ public class BizIdempotentManager {
 	public void beginTrans(String token, long expire, TimeUnit unit, String errMsg) {
 		/*
 		 * 先判断本地有没有
-		 * 再判断redis中有没有
+		 * 开启localFastPath时再判断进程内有没有
+		 * 最后判断redis中有没有
 		 */
-		if (sessionTokenExists(token) || redisTokenExistsAndSet(token, expire, unit)) {
+		if (sessionTokenExists(token)) {
 			throw new DuplicateRequestRuntimeException(errMsg);
 		}
+		long start = System.nanoTime();
+		if (localFastPath && !localTokens.tryAcquire(token, unit.toNanos(expire))) {
+			recordAcquire(token, false, start);
+			throw duplicate(token, errMsg);
+		}
+
+		boolean exists;
+		try {
+			exists = redisTokenExistsAndSet(token, expire, unit);
+		} catch (RuntimeException e) {
+			if (localFastPath) localTokens.release(token);
+			throw e;
+		}
+		recordAcquire(token, !exists, start);
+		if (exists) {
+			if (localFastPath) localTokens.release(token);  // 令牌被其它进程持有，回滚进程内登记
+			throw duplicate(token, errMsg);
+		}
+		if (replayMode) {
+			/* 获得令牌之后再判断一次，第一次请求可能在保存响应之后已经释放了令牌 */
+			String body = IdempotentResponseCache.getInstance().get(responseToken(token));
+			if (body != null) {
+				release(token);
+				throw new ReplayResponseRuntimeException(errMsg, body);
+			}
+		}
 		if (log.isDebugEnabled()) log.debug("BizIdempotentManager.startTrans({})", token);
 	}
 
@@ -114,6 +185,167 @@ public class BizIdempotentManager {
 		beginTrans(token, defaultExpire, TimeUnit.SECONDS, errMsg);
 	}
 
+	/**
+	 * 保存第一次请求的响应，在释放令牌之前调用
+	 * 在{@link #getReplayExpire()}秒内的重复请求可以得到该响应
+	 *
+	 * @param token    令牌
+	 * @param response 响应
+	 * @author Tequila
+	 * @date 2022/12/02 11:30
+	 */
+	public void complete(String token, Object response) {
+		IdempotentResponseCache.getInstance().put(responseToken(token), response, replayExpire, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * 幂等执行，并保存响应
+	 * 第一次请求执行完成后保存响应，重复请求直接返回保存的响应，不再执行；
+	 * 如果第一次请求还在执行中，则抛出{@link DuplicateRequestRuntimeException}
+	 *
+	 * @param token         令牌
+	 * @param expire        到期
+	 * @param unit          单位
+	 * @param responseClass 响应类型
+	 * @param action        执行的操作
+	 * @return {@link T }
+	 * @author Tequila
+	 * @date 2022/12/02 11:35
+	 */
+	public <T> T execute(String token, long expire, TimeUnit unit, Class<T> responseClass, Supplier<T> action) {
+		try {
+			beginTrans(token, expire, unit, null);
+		} catch (ReplayResponseRuntimeException e) {
+			return e.getResponse(responseClass);
+		} catch (DuplicateRequestRuntimeException e) {
+			String body = IdempotentResponseCache.getInstance().get(responseToken(token));
+			if (body == null) throw e;  // 第一次请求还在执行中
+
+			return IdempotentResponseCache.parse(body, responseClass);
+		}
+
+		try {
+			/* 获得令牌之后再判断一次，第一次请求可能在保存响应之后已经释放了令牌（重放模式下beginTrans中已经判断过） */
+			String body = replayMode ? null : IdempotentResponseCache.getInstance().get(responseToken(token));
+			if (body != null) return IdempotentResponseCache.parse(body, responseClass);
+
+			T response = action.get();
+			complete(token, response);
+			return response;
+		} finally {
+			release(token);
+		}
+	}
+
+	/**
+	 * 幂等执行，并保存响应
+	 *
+	 * @param token         令牌
+	 * @param responseClass 响应类型
+	 * @param action        执行的操作
+	 * @return {@link T }
+	 * @author Tequila
+	 * @date 2022/12/02 11:40
+	 */
+	public <T> T execute(String token, Class<T> responseClass, Supplier<T> action) {
+		return execute(token, defaultExpire, TimeUnit.SECONDS, responseClass, action);
+	}
+
+	/**
+	 * 生成重复请求错误，重放模式下如果已经保存了响应，则返回携带响应的错误
+	 *
+	 * @param token  令牌
+	 * @param errMsg 错误消息
+	 * @return {@link DuplicateRequestRuntimeException }
+	 * @author Tequila
+	 * @date 2022/12/02 11:45
+	 */
+	private DuplicateRequestRuntimeException duplicate(String token, String errMsg) {
+		if (replayMode) {
+			String body = IdempotentResponseCache.getInstance().get(responseToken(token));
+			if (body != null) return new ReplayResponseRuntimeException(errMsg, body);
+		}
+		return new DuplicateRequestRuntimeException(errMsg);
+	}
+
+	/**
+	 * 保存响应使用的令牌
+	 *
+	 * @param token 令牌
+	 * @return {@link String }
+	 * @author Tequila
+	 * @date 2022/12/02 11:48
+	 */
+	private String responseToken(String token) {
+		return "biz:" + token;
+	}
+
+	/**
+	 * 同时开始多个令牌的事务处理，所有令牌全部获取成功，或者全部不获取
+	 * 在一次请求中完成判断和设置；redis集群下所有令牌必须在同一个slot中（例如使用{tag}形式的hash tag）
+	 *
+	 * @param expire 到期
+	 * @param unit   单位
+	 * @param errMsg 错误消息
+	 * @param tokens 令牌
+	 * @author Tequila
+	 * @date 2022/12/01 10:10
+	 */
+	public void beginTransAll(long expire, TimeUnit unit, String errMsg, String... tokens) {
+		List<String> tokenList = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(tokens)));
+		if (tokenList.isEmpty()) return;
+
+		for (String token : tokenList) {
+			if (sessionTokenExists(token)) {
+				throw new DuplicateRequestRuntimeException(errMsg);
+			}
+		}
+		long start = System.nanoTime();
+		if (localFastPath) {
+			for (int i = 0; i < tokenList.size(); i++) {
+				if (!localTokens.tryAcquire(tokenList.get(i), unit.toNanos(expire))) {
+					for (int j = 0; j < i; j++) localTokens.release(tokenList.get(j));  // 回滚已经登记的令牌
+					recordAcquire(tokenList.get(i), false, start);
+					throw new DuplicateRequestRuntimeException(errMsg);
+				}
+			}
+		}
+
+		List<String> keys = new ArrayList<>(tokenList.size());
+		for (String token : tokenList) {
+			keys.add(BIZ_IDEMPOTENT_PREFIX + token);
+		}
+		Long result;
+		try {
+			result = getRedisTemplate().execute(ACQUIRE_ALL_SCRIPT, keys, String.valueOf(unit.toMillis(expire)));
+		} catch (RuntimeException e) {
+			if (localFastPath) tokenList.forEach(localTokens::release);
+			throw e;
+		}
+		if (result == null || result != 0L) {
+			if (localFastPath) tokenList.forEach(localTokens::release);
+			if (result != null) recordAcquire(tokenList.get(result.intValue() - 1), false, start);  // 只记录冲突的令牌
+			throw new DuplicateRequestRuntimeException(errMsg);
+		}
+
+		for (String token : tokenList) {
+			recordAcquire(token, true, start);
+			putToken(token, unit.toNanos(expire));
+		}
+		if (log.isDebugEnabled()) log.debug("BizIdempotentManager.startTransAll({})", tokenList);
+	}
+
+	/**
+	 * 同时开始多个令牌的事务处理
+	 *
+	 * @param tokens 令牌
+	 * @author Tequila
+	 * @date 2022/12/01 10:15
+	 */
+	public void beginTransAll(String... tokens) {
+		beginTransAll(defaultExpire, TimeUnit.SECONDS, null, tokens);
+	}
+
 	/**
 	 * 是否在事务处理中
 	 *
@@ -164,7 +396,7 @@ public class BizIdempotentManager {
 		String key = BIZ_IDEMPOTENT_PREFIX + token;
 		Boolean result = getRedisTemplate().opsForValue().setIfAbsent(key, "", expire, unit);
 		if (Boolean.TRUE.equals(result)) {
-			putToken(token);
+			putToken(token, unit.toNanos(expire));
 			return false;
 		} else {
 			return true;
@@ -174,12 +406,12 @@ public class BizIdempotentManager {
 	/**
 	 * 设置令牌
 	 *
-	 * @param token 令牌
-	 * @return {@link String }
+	 * @param token  令牌
+	 * @param expire 到期时间（纳秒）
 	 * @author Tequila
 	 * @date 2022/04/09 20:36
 	 */
-	private void putToken(String token) {
+	private void putToken(String token, long expire) {
 		Stack<String> tokenStack;
 		if (threadToken.get() == null) {
 			tokenStack = new Stack<>();
@@ -189,6 +421,45 @@ public class BizIdempotentManager {
 		}
 
 		tokenStack.push(token);
+
+		if (IdempotentMetrics.isEnabled()) {
+			Map<String, long[]> holds = threadTokenHold.get();
+			if (holds == null) {
+				holds = new HashMap<>();
+				threadTokenHold.set(holds);
+			}
+			holds.put(token, new long[] { System.nanoTime(), expire });
+		}
+	}
+
+	/**
+	 * 记录令牌获取结果
+	 *
+	 * @param token   令牌
+	 * @param success 是否获取成功
+	 * @param start   开始时间（nanoTime）
+	 * @author Tequila
+	 * @date 2022/12/07 11:00
+	 */
+	private void recordAcquire(String token, boolean success, long start) {
+		IdempotentMetrics metrics = IdempotentMetrics.forToken(token);
+		if (metrics != null) metrics.recordAcquire(success, false, System.nanoTime() - start);
+	}
+
+	/**
+	 * 记录令牌持有时间
+	 *
+	 * @param token 令牌
+	 * @author Tequila
+	 * @date 2022/12/07 11:05
+	 */
+	private void recordRelease(String token) {
+		Map<String, long[]> holds = threadTokenHold.get();
+		long[] hold = holds != null ? holds.remove(token) : null;
+		if (hold == null) return;
+
+		IdempotentMetrics metrics = IdempotentMetrics.forToken(token);
+		if (metrics != null) metrics.recordRelease(System.nanoTime() - hold[0], hold[1]);
 	}
 
 	/**
@@ -204,15 +475,15 @@ public class BizIdempotentManager {
 			if (tokenStack != null && !tokenStack.isEmpty()) {
 				String lastToken = tokenStack.pop();
 				log.debug("BizIdempotentManager.release(), token {}", lastToken);
-				String key = BIZ_IDEMPOTENT_PREFIX + lastToken;
-				getRedisTemplate().delete(key);
+				recordRelease(lastToken);
+				delRedisKey(lastToken);
 
 				return lastToken;
 			}
 
 			throw new IdempotentRuntimeException("Idempotent session not start");
 		} finally {
-			if (tokenStack != null && tokenStack.isEmpty()) threadToken.remove();
+			if (tokenStack != null && tokenStack.isEmpty()) removeThreadToken();
 		}
 	}
 
@@ -230,6 +501,7 @@ public class BizIdempotentManager {
 			/* 1.先从堆栈中判断是否存在，先清空堆栈中的数据 */
 			if (tokenStack != null && !tokenStack.isEmpty() && tokenStack.contains(token)) {
 				tokenStack.remove(token);
+				recordRelease(token);
 				log.debug("BizIdempotentManager.release({})", token);
 			}
 
@@ -238,7 +510,7 @@ public class BizIdempotentManager {
 				return true;
 			}
 		} finally {
-			if (tokenStack != null && tokenStack.isEmpty()) threadToken.remove();
+			if (tokenStack != null && tokenStack.isEmpty()) removeThreadToken();
 		}
 
 		return false;
@@ -246,6 +518,7 @@ public class BizIdempotentManager {
 
 	/**
 	 * 释放所有token
+	 * 使用一次DEL命令删除所有token
 	 *
 	 * @author Tequila
 	 * @date 2022/04/09 21:08
@@ -254,16 +527,31 @@ public class BizIdempotentManager {
 		Stack<String> tokenStack = threadToken.get();
 		try {
 			if (tokenStack != null && !tokenStack.isEmpty()) {
+				List<String> keys = new ArrayList<>(tokenStack.size());
 				while (!tokenStack.isEmpty()) {
 					String lastToken = tokenStack.pop();  // 堆栈pop最后进去的一个token
-					delRedisKey(lastToken);
+					if (localFastPath) localTokens.release(lastToken);
+					recordRelease(lastToken);
+					keys.add(BIZ_IDEMPOTENT_PREFIX + lastToken);
 				}
+				getRedisTemplate().delete(keys);  // 一次DEL删除所有key
 			}
 		} finally {
-			threadToken.remove();
+			removeThreadToken();
 		}
 	}
 
+	/**
+	 * 清除当前线程的令牌
+	 *
+	 * @author Tequila
+	 * @date 2022/12/07 11:08
+	 */
+	private void removeThreadToken() {
+		threadToken.remove();
+		threadTokenHold.remove();
+	}
+
 
 	/**
 	 * 合并令牌
@@ -278,13 +566,15 @@ public class BizIdempotentManager {
 	}
 
 	/**
-	 * 删除redis key
+	 * 删除redis key，同时释放进程内令牌
 	 *
 	 * @param token 令牌
 	 * @author Tequila
 	 * @date 2022/04/09 22:16
 	 */
 	private boolean delRedisKey(String token) {
+		if (localFastPath) localTokens.release(token);
+
 		String key = BIZ_IDEMPOTENT_PREFIX + token;
 		return Boolean.TRUE.equals(getRedisTemplate().delete(key));
 	}
@@ -317,4 +607,37 @@ public class BizIdempotentManager {
 	public void setDefaultExpire(long defaultExpire) {
 		this.defaultExpire = defaultExpire;
 	}
+
+	public boolean isReplayMode() {
+		return replayMode;
+	}
+
+	public void setReplayMode(boolean replayMode) {
+		this.replayMode = replayMode;
+	}
+
+	public long getReplayExpire() {
+		return replayExpire;
+	}
+
+	public void setReplayExpire(long replayExpire) {
+		this.replayExpire = replayExpire;
+	}
+
+	public boolean isLocalFastPath() {
+		return localFastPath;
+	}
+
+	/**
+	 * 设置是否开启进程内快速判断
+	 * 开启后，其它进程释放的令牌在本进程中仍然有效，直到本进程释放或者到期
+	 *
+	 * @param localFastPath 是否开启
+	 * @author Tequila
+	 * @date 2022/11/30 10:40
+	 */
+	public void setLocalFastPath(boolean localFastPath) {
+		this.localFastPath = localFastPath;
+		if (!localFastPath) localTokens.clear();
+	}
 }
@@ -4,7 +4,9 @@ import org.valkyrja2.component.idempotent.exception.DuplicateRequestException;
 import org.valkyrja2.component.idempotent.exception.IdempotentException;
 import org.valkyrja2.util.StringUtils;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * 抽象幂等对象
@@ -92,6 +94,39 @@ public abstract class Idempotent implements AutoCloseable {
      */
    public abstract Idempotent acquire(long wait, long expire, TimeUnit unit) throws IdempotentException;
 
+    /**
+     * 异步请求幂等令牌
+     *
+     * @return {@link CompletableFuture }<{@link Idempotent }>
+     * @author Tequila
+     * @date 2022/12/05 10:00
+     */
+    public CompletableFuture<Idempotent> acquireAsync() {
+        return acquireAsync(getConfig().getWait(), getConfig().getExpire(), IdempotentConst.DEFAULT_UNIT);
+    }
+
+    /**
+     * 异步请求幂等令牌
+     * 等待令牌期间不占用调用线程，获取失败时future以{@link DuplicateRequestException}异常结束。
+     * 默认实现为同步获取，子类可以使用异步api覆盖
+     *
+     * @param wait   等待
+     * @param expire 到期
+     * @param unit   单位
+     * @return {@link CompletableFuture }<{@link Idempotent }>
+     * @author Tequila
+     * @date 2022/12/05 10:05
+     */
+    public CompletableFuture<Idempotent> acquireAsync(long wait, long expire, TimeUnit unit) {
+        CompletableFuture<Idempotent> future = new CompletableFuture<>();
+        try {
+            future.complete(acquire(wait, expire, unit));
+        } catch (IdempotentException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
     /**
      * 释放
      *
@@ -101,6 +136,75 @@ public abstract class Idempotent implements AutoCloseable {
     public abstract void release();
 
 
+    /**
+     * 幂等执行，并保存响应
+     * 第一次请求执行完成后保存响应，在{@link IdempotentConfig#getReplayExpire()}内的重复请求直接返回保存的响应；
+     * 如果第一次请求还在执行中，则抛出{@link DuplicateRequestException}
+     *
+     * @param responseClass 响应类型
+     * @param action        执行的操作
+     * @return {@link T }
+     * @throws IdempotentException 幂等异常
+     * @author Tequila
+     * @date 2022/12/02 11:00
+     */
+    public <T> T execute(Class<T> responseClass, Supplier<T> action) throws IdempotentException {
+        try {
+            acquire();
+        } catch (DuplicateRequestException e) {
+            String body = IdempotentResponseCache.getInstance().get(responseToken());
+            if (body != null) return IdempotentResponseCache.parse(body, responseClass);
+            throw e;
+        }
+
+        try {
+            /* 获得令牌之后再判断一次，避免在第一次请求保存响应并释放令牌之后重复执行 */
+            String body = IdempotentResponseCache.getInstance().get(responseToken());
+            if (body != null) return IdempotentResponseCache.parse(body, responseClass);
+
+            T response = action.get();
+            complete(response);
+            return response;
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * 保存响应，在释放令牌之前调用
+     *
+     * @param response 响应
+     * @author Tequila
+     * @date 2022/12/02 11:05
+     */
+    public void complete(Object response) {
+        IdempotentResponseCache.getInstance().put(responseToken(), response, getConfig().getReplayExpire(), IdempotentConst.DEFAULT_UNIT);
+    }
+
+    /**
+     * 读取保存的响应
+     *
+     * @param responseClass 响应类型
+     * @return {@link T } 没有保存时返回null
+     * @author Tequila
+     * @date 2022/12/02 11:08
+     */
+    public <T> T replay(Class<T> responseClass) {
+        String body = IdempotentResponseCache.getInstance().get(responseToken());
+        return body != null ? IdempotentResponseCache.parse(body, responseClass) : null;
+    }
+
+    /**
+     * 保存响应使用的令牌
+     *
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/12/02 11:10
+     */
+    protected String responseToken() {
+        return "rti:" + tokenName;
+    }
+
     @Override
     public void close() {
         release();
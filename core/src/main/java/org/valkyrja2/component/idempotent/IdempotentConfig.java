@@ -17,16 +17,21 @@ public final class IdempotentConfig {
     /** 模式 */
     private String mode;
 
+    /** 响应保存时间，参考{@link Idempotent#execute(Class, java.util.function.Supplier)} */
+    private long replayExpire;
+
     public IdempotentConfig() {
         wait = IdempotentConst.DEFAULT_WAIT;
         expire = IdempotentConst.DEFAULT_EXPIRE;
         mode = IdempotentConst.DEFAULT_MODE;
+        replayExpire = IdempotentConst.DEFAULT_REPLAY_EXPIRE;
     }
 
     public IdempotentConfig(long wait, long expire, String mode) {
         this.wait = wait;
         this.expire = expire;
         this.mode = mode;
+        this.replayExpire = IdempotentConst.DEFAULT_REPLAY_EXPIRE;
     }
 
     public long getWait() {
@@ -52,4 +57,12 @@ public final class IdempotentConfig {
     public void setMode(String mode) {
         this.mode = mode;
     }
+
+    public long getReplayExpire() {
+        return replayExpire;
+    }
+
+    public void setReplayExpire(long replayExpire) {
+        this.replayExpire = replayExpire;
+    }
 }
@@ -21,6 +21,7 @@ public final class IdempotentConfigLoader {
     public static final String PROP_WAIT = "idempotent.wait";
     public static final String PROP_EXPIRE = "idempotent.expire";
     public static final String PROP_MODE = "idempotent.mode";
+    public static final String PROP_REPLAY_EXPIRE = "idempotent.replay.expire";
 
 
     private static IdempotentConfig config;
@@ -43,6 +44,7 @@ public final class IdempotentConfigLoader {
             config.setWait(Long.parseLong(p.getProperty(PROP_WAIT, String.valueOf(IdempotentConst.DEFAULT_WAIT))));
             config.setExpire(Long.parseLong(p.getProperty(PROP_EXPIRE, String.valueOf(IdempotentConst.DEFAULT_EXPIRE))));
             config.setMode(p.getProperty(PROP_MODE, IdempotentConst.DEFAULT_MODE));
+            config.setReplayExpire(Long.parseLong(p.getProperty(PROP_REPLAY_EXPIRE, String.valueOf(IdempotentConst.DEFAULT_REPLAY_EXPIRE))));
         }
     }
 
@@ -16,6 +16,9 @@ public final class IdempotentConst {
     /** 默认锁到期时间 */
     public static final long DEFAULT_EXPIRE = 3000L;
 
+    /** 默认响应保存时间 */
+    public static final long DEFAULT_REPLAY_EXPIRE = 60000L;
+
     /** 默认时间单位，秒 */
     public static final TimeUnit DEFAULT_UNIT = TimeUnit.MILLISECONDS;
 
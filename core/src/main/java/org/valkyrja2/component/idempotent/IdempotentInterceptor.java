@@ -0,0 +1,262 @@
+/*
+ * PROJECT valkyrja2
+ * core/IdempotentInterceptor.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.idempotent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.common.LiteralExpression;
+import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.SimpleEvaluationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.valkyrja2.component.idempotent.exception.DuplicateRequestException;
+import org.valkyrja2.component.idempotent.exception.DuplicateRequestRuntimeException;
+import org.valkyrja2.exception.ValidateException;
+import org.valkyrja2.mvc.RequestContextFactory;
+import org.valkyrja2.util.NetworkUtils;
+import org.valkyrja2.util.StringUtils;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link org.valkyrja2.component.idempotent.annotation.Idempotent}注释处理拦截器<br>
+ * 每个方法的注释和key表达式只解析一次并缓存，不含#{...}的key直接作为令牌使用；
+ * key中的任意#{...}部分为空时拒绝请求（{@link ValidateException}），避免不相关的请求共享同一个令牌；
+ * 请求完成后在afterCompletion中自动释放令牌，异步请求在最终完成时释放。
+ * spring配置
+ * <pre>
+ * &lt;mvc:interceptors&gt;
+ *   &lt;mvc:interceptor&gt;
+ *     &lt;mvc:mapping path="/services/**" /&gt;
+ *     &lt;bean class="org.valkyrja2.component.idempotent.IdempotentInterceptor" /&gt;
+ *   &lt;/mvc:interceptor&gt;
+ * &lt;/mvc:interceptors&gt;
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/12/06 10:30
+ **/
+public class IdempotentInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotentInterceptor.class);
+
+    /** 保存当前请求令牌的request attribute */
+    public static final String ATTR_IDEMPOTENT = IdempotentInterceptor.class.getName() + ".IDEMPOTENT";
+
+    /** 模板表达式前缀 */
+    private static final String TEMPLATE_PREFIX = "#{";
+
+    /** 没有注释的方法 */
+    private static final KeyDefinition NONE = new KeyDefinition(null, null, null);
+
+    /** key表达式部分为空时的错误信息 */
+    private static final String MSG_BLANK_KEY = "Idempotent key part `%s` is blank";
+
+    /** SpEL解析，表达式在多次执行后编译为字节码 */
+    private static final ExpressionParser PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, IdempotentInterceptor.class.getClassLoader()));
+
+    /** 每个处理类型和方法解析后的定义，类上的注释按实际的处理类型查找 */
+    private final Map<DefinitionKey, KeyDefinition> definitions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!(handler instanceof HandlerMethod)) return true;
+        if (request.getDispatcherType() == DispatcherType.ASYNC
+                && request.getAttribute(ATTR_IDEMPOTENT) != null) return true;  // 异步请求重新分派，令牌已经获取
+
+        KeyDefinition definition = getDefinition((HandlerMethod) handler);
+        if (definition == NONE) return true;
+
+        String token = definition.token(request);
+        org.valkyrja2.component.idempotent.annotation.Idempotent anno = definition.annotation;
+        IdempotentConfig config = IdempotentConfigLoader.getConfig();
+        long wait = anno.wait() >= 0 ? anno.unit().toMillis(anno.wait()) : config.getWait();
+        long expire = anno.expire() >= 0 ? anno.unit().toMillis(anno.expire()) : config.getExpire();
+        try {
+            Idempotent idempotent = RtiU.idempotent(token, wait, expire, IdempotentConst.DEFAULT_UNIT);
+            request.setAttribute(ATTR_IDEMPOTENT, idempotent);
+        } catch (DuplicateRequestException e) {
+            throw new DuplicateRequestRuntimeException(StringUtils.isNotBlank(anno.message()) ? anno.message() : null, e);
+        }
+        if (log.isDebugEnabled()) log.debug("IdempotentInterceptor acquire token {}", token);
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        Object idempotent = request.getAttribute(ATTR_IDEMPOTENT);
+        if (idempotent instanceof Idempotent) {
+            request.removeAttribute(ATTR_IDEMPOTENT);
+            ((Idempotent) idempotent).release();
+        }
+    }
+
+    /**
+     * 获取方法的定义，第一次调用时解析并缓存
+     *
+     * @param handlerMethod 处理方法
+     * @return {@link KeyDefinition }
+     * @author Tequila
+     * @date 2022/12/06 10:40
+     */
+    private KeyDefinition getDefinition(HandlerMethod handlerMethod) {
+        DefinitionKey definitionKey = new DefinitionKey(handlerMethod.getBeanType(), handlerMethod.getMethod());
+        KeyDefinition definition = definitions.get(definitionKey);
+        if (definition != null) return definition;
+
+        return definitions.computeIfAbsent(definitionKey, k -> {
+            org.valkyrja2.component.idempotent.annotation.Idempotent anno = AnnotatedElementUtils.findMergedAnnotation(k.method,
+                    org.valkyrja2.component.idempotent.annotation.Idempotent.class);
+            if (anno == null) {
+                anno = AnnotatedElementUtils.findMergedAnnotation(k.beanType,
+                        org.valkyrja2.component.idempotent.annotation.Idempotent.class);
+            }
+            if (anno == null) return NONE;
+
+            String key = anno.key();
+            if (key.contains(TEMPLATE_PREFIX)) {
+                Expression expression = PARSER.parseExpression(key, new TemplateParserContext());
+                Expression[] parts = expression instanceof CompositeStringExpression
+                        ? ((CompositeStringExpression) expression).getExpressions()
+                        : new Expression[] { expression };
+                return new KeyDefinition(anno, null, parts);
+            } else {
+                return new KeyDefinition(anno, key, null);
+            }
+        });
+    }
+
+    /**
+     * 方法的幂等定义
+     *
+     * @author Tequila
+     * @create 2022/12/06 10:35
+     **/
+    private static final class KeyDefinition {
+
+        private final org.valkyrja2.component.idempotent.annotation.Idempotent annotation;
+
+        /** 固定的令牌 */
+        private final String literal;
+
+        /** 令牌模板的各个部分，固定文本为LiteralExpression */
+        private final Expression[] parts;
+
+        private KeyDefinition(org.valkyrja2.component.idempotent.annotation.Idempotent annotation,
+                              String literal, Expression[] parts) {
+            this.annotation = annotation;
+            this.literal = literal;
+            this.parts = parts;
+        }
+
+        private String token(HttpServletRequest request) {
+            if (literal != null) return literal;
+
+            KeyRoot root = new KeyRoot(request);
+            EvaluationContext context = SimpleEvaluationContext.forReadOnlyDataBinding()
+                    .withInstanceMethods().withRootObject(root).build();
+            StringBuilder sb = new StringBuilder();
+            for (Expression part : parts) {
+                if (part instanceof LiteralExpression) {
+                    sb.append(part.getExpressionString());
+                    continue;
+                }
+
+                String value = part.getValue(context, root, String.class);
+                if (StringUtils.isBlank(value)) {
+                    throw new ValidateException(part.getExpressionString(), String.format(MSG_BLANK_KEY, part.getExpressionString()));
+                }
+                sb.append(value);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * 定义的缓存key，同一个方法被不同的处理类型（子类、代理）继承时，类上的注释可能不同
+     *
+     * @author Tequila
+     * @create 2022/12/09 16:30
+     **/
+    private static final class DefinitionKey {
+
+        private final Class<?> beanType;
+
+        private final Method method;
+
+        private DefinitionKey(Class<?> beanType, Method method) {
+            this.beanType = beanType;
+            this.method = method;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DefinitionKey)) return false;
+            DefinitionKey that = (DefinitionKey) o;
+            return beanType == that.beanType && method.equals(that.method);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * beanType.hashCode() + method.hashCode();
+        }
+    }
+
+    /**
+     * key表达式的根对象
+     *
+     * @author Tequila
+     * @create 2022/12/06 10:36
+     **/
+    public static final class KeyRoot {
+
+        private final HttpServletRequest request;
+
+        private KeyRoot(HttpServletRequest request) {
+            this.request = request;
+        }
+
+        public String param(String name) {
+            return request.getParameter(name);
+        }
+
+        public String header(String name) {
+            return request.getHeader(name);
+        }
+
+        @SuppressWarnings("unchecked")
+        public String path(String name) {
+            Object vars = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            return vars instanceof Map ? ((Map<String, String>) vars).get(name) : null;
+        }
+
+        public String getRemoteIp() {
+            if (RequestContextFactory.getContext() != null) {
+                return RequestContextFactory.getContext().getRemoteIPAddress();
+            } else {
+                return NetworkUtils.getRemoteIPAddress(request);
+            }
+        }
+    }
+}
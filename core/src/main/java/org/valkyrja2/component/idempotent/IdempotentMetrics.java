@@ -0,0 +1,222 @@
+/*
+ * PROJECT valkyrja2
+ * core/IdempotentMetrics.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.idempotent;
+
+import org.valkyrja2.util.JmxUtils;
+import org.valkyrja2.util.LogLinearHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 幂等令牌统计<br>
+ * 按令牌前缀（最后一个:之前的部分）统计获取成功、拒绝、等待超时、持有超时的次数，以及等待时间（微秒）和持有时间（毫秒）的分布，
+ * 用于根据实际数据调整idempotent.wait和idempotent.expire配置。
+ * 可以在进程内通过{@link #get(String)}或{@link #getAll()}查询，同时注册到JMX（org.valkyrja2:type=IdempotentMetrics,prefix="..."）。<br>
+ * 为了避免令牌中的动态部分导致前缀无限增长，前缀数量超过{@link #MAX_PREFIXES}后统一计入{@link #OTHER_PREFIX}。
+ *
+ * @author Tequila
+ * @create 2022/12/07 10:10
+ **/
+public class IdempotentMetrics implements IdempotentMetricsMXBean {
+
+    /** 最多统计的前缀数量 */
+    public static final int MAX_PREFIXES = 500;
+
+    /** 没有前缀的令牌 */
+    public static final String DEFAULT_PREFIX = "_default_";
+
+    /** 超过最大数量的前缀 */
+    public static final String OTHER_PREFIX = "_other_";
+
+    /** 所有前缀的统计 */
+    private static final ConcurrentHashMap<String, IdempotentMetrics> METRICS = new ConcurrentHashMap<>();
+
+    /** 是否开启统计 */
+    private static volatile boolean enabled = true;
+
+    private final String prefix;
+
+    private final LongAdder acquired = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    private final LongAdder expiredWhileHeld = new LongAdder();
+
+    private final LogLinearHistogram waitTime = new LogLinearHistogram();
+
+    private final LogLinearHistogram holdTime = new LogLinearHistogram();
+
+    private IdempotentMetrics(String prefix) {
+        this.prefix = prefix;
+    }
+
+    /**
+     * 根据令牌获取统计
+     *
+     * @param token 令牌
+     * @return {@link IdempotentMetrics } 没有开启统计时返回null
+     * @author Tequila
+     * @date 2022/12/07 10:15
+     */
+    public static IdempotentMetrics forToken(String token) {
+        if (!enabled || token == null) return null;
+
+        int pos = token.lastIndexOf(':');
+        return get(pos > 0 ? token.substring(0, pos) : DEFAULT_PREFIX);
+    }
+
+    /**
+     * 获取前缀的统计，不存在时创建并注册到JMX
+     *
+     * @param prefix 前缀
+     * @return {@link IdempotentMetrics }
+     * @author Tequila
+     * @date 2022/12/07 10:18
+     */
+    public static IdempotentMetrics get(String prefix) {
+        IdempotentMetrics metrics = METRICS.get(prefix);
+        if (metrics != null) return metrics;
+
+        String p = METRICS.size() < MAX_PREFIXES ? prefix : OTHER_PREFIX;
+        return METRICS.computeIfAbsent(p, k -> {
+            IdempotentMetrics m = new IdempotentMetrics(k);
+            JmxUtils.registerMBean(m, "IdempotentMetrics", "prefix", m.prefix);
+            return m;
+        });
+    }
+
+    /**
+     * 所有前缀的统计
+     *
+     * @return {@link List }<{@link IdempotentMetrics }>
+     * @author Tequila
+     * @date 2022/12/07 10:20
+     */
+    public static List<IdempotentMetrics> getAll() {
+        return new ArrayList<>(METRICS.values());
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        IdempotentMetrics.enabled = enabled;
+    }
+
+    /**
+     * 记录一次获取
+     *
+     * @param success      是否成功
+     * @param waited       是否设置了等待时间，没有等待时失败记为拒绝，否则记为超时
+     * @param elapsedNanos 获取耗时（纳秒）
+     * @author Tequila
+     * @date 2022/12/07 10:25
+     */
+    public void recordAcquire(boolean success, boolean waited, long elapsedNanos) {
+        if (success) {
+            acquired.increment();
+        } else if (waited) {
+            timedOut.increment();
+        } else {
+            rejected.increment();
+        }
+        waitTime.record(TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+    }
+
+    /**
+     * 记录一次释放
+     *
+     * @param holdNanos   持有时间（纳秒）
+     * @param expireNanos 到期时间（纳秒），小于等于0为没有到期时间
+     * @author Tequila
+     * @date 2022/12/07 10:28
+     */
+    public void recordRelease(long holdNanos, long expireNanos) {
+        holdTime.record(TimeUnit.NANOSECONDS.toMillis(holdNanos));
+        if (expireNanos > 0 && holdNanos > expireNanos) {
+            expiredWhileHeld.increment();
+        }
+    }
+
+    @Override
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getTimedOut() {
+        return timedOut.sum();
+    }
+
+    @Override
+    public long getExpiredWhileHeld() {
+        return expiredWhileHeld.sum();
+    }
+
+    @Override
+    public long getWaitTimeP50() {
+        return waitTime.percentile(50);
+    }
+
+    @Override
+    public long getWaitTimeP99() {
+        return waitTime.percentile(99);
+    }
+
+    @Override
+    public long getWaitTimeMax() {
+        return waitTime.getMax();
+    }
+
+    @Override
+    public long getHoldTimeP50() {
+        return holdTime.percentile(50);
+    }
+
+    @Override
+    public long getHoldTimeP99() {
+        return holdTime.percentile(99);
+    }
+
+    @Override
+    public long getHoldTimeMax() {
+        return holdTime.getMax();
+    }
+
+    @Override
+    public void reset() {
+        acquired.reset();
+        rejected.reset();
+        timedOut.reset();
+        expiredWhileHeld.reset();
+        waitTime.reset();
+        holdTime.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s acquired: %d, rejected: %d, timed out: %d, expired while held: %d, wait p99: %dus, hold p99: %dms",
+                prefix, getAcquired(), getRejected(), getTimedOut(), getExpiredWhileHeld(), getWaitTimeP99(), getHoldTimeP99());
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * PROJECT valkyrja2
+ * core/IdempotentMetricsMXBean.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.idempotent;
+
+/**
+ * 幂等令牌统计JMX接口，每个令牌前缀注册一个
+ * ObjectName: org.valkyrja2:type=IdempotentMetrics,prefix="..."
+ *
+ * @author Tequila
+ * @create 2022/12/07 10:00
+ **/
+public interface IdempotentMetricsMXBean {
+
+    String getPrefix();
+
+    /** 获取成功次数 */
+    long getAcquired();
+
+    /** 不等待时获取失败（重复请求）次数 */
+    long getRejected();
+
+    /** 等待超时次数 */
+    long getTimedOut();
+
+    /** 持有时间超过到期时间的次数（令牌在释放之前已经自动过期） */
+    long getExpiredWhileHeld();
+
+    /** 获取等待时间（微秒） */
+    long getWaitTimeP50();
+
+    long getWaitTimeP99();
+
+    long getWaitTimeMax();
+
+    /** 持有时间（毫秒） */
+    long getHoldTimeP50();
+
+    long getHoldTimeP99();
+
+    long getHoldTimeMax();
+
+    /**
+     * 清空统计数据
+     *
+     * @author Tequila
+     * @date 2022/12/07 10:02
+     */
+    void reset();
+}
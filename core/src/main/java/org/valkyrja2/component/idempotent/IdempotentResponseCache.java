@@ -0,0 +1,131 @@
+/*
+ * PROJECT valkyrja2
+ * core/IdempotentResponseCache.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.idempotent;
+
+import com.fasterxml.jackson.core.JacksonException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.valkyrja2.component.idempotent.exception.IdempotentRuntimeException;
+import org.valkyrja2.component.redis.RedisFactory;
+import org.valkyrja2.util.Jackson2Utils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 幂等请求的响应缓存<br>
+ * 第一次请求处理完成后，将响应序列化为json保存在令牌对应的key中，
+ * 在有效期内重复的请求可以直接返回保存的响应，而不是报重复请求错误。
+ *
+ * @author Tequila
+ * @create 2022/12/02 10:00
+ **/
+public class IdempotentResponseCache {
+
+    private static volatile IdempotentResponseCache _instance;
+    private IdempotentResponseCache() { }
+    public static IdempotentResponseCache getInstance() {
+        if (_instance == null) {
+            synchronized (IdempotentResponseCache.class) {
+                if (_instance == null) {
+                    _instance = new IdempotentResponseCache();
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /** redis key 前缀 */
+    private static final String RESPONSE_PREFIX = "$it:resp:";
+
+    /** RedisTemplate */
+    private StringRedisTemplate redisTemplate;
+
+    /**
+     * 保存响应
+     *
+     * @param token    令牌
+     * @param response 响应
+     * @param expire   有效期
+     * @param unit     单位
+     * @author Tequila
+     * @date 2022/12/02 10:10
+     */
+    public void put(String token, Object response, long expire, TimeUnit unit) {
+        String body;
+        try {
+            body = Jackson2Utils.obj2json(response);
+        } catch (JacksonException e) {
+            throw new IdempotentRuntimeException("Serialize idempotent response error.", e);
+        }
+        getRedisTemplate().opsForValue().set(RESPONSE_PREFIX + token, body, expire, unit);
+    }
+
+    /**
+     * 读取保存的响应
+     *
+     * @param token 令牌
+     * @return {@link String } 响应的json，没有保存时返回null
+     * @author Tequila
+     * @date 2022/12/02 10:15
+     */
+    public String get(String token) {
+        return getRedisTemplate().opsForValue().get(RESPONSE_PREFIX + token);
+    }
+
+    /**
+     * 删除保存的响应
+     *
+     * @param token 令牌
+     * @author Tequila
+     * @date 2022/12/02 10:18
+     */
+    public void remove(String token) {
+        getRedisTemplate().delete(RESPONSE_PREFIX + token);
+    }
+
+    /**
+     * 将保存的响应转换为对象
+     *
+     * @param body          响应的json
+     * @param responseClass 响应类型
+     * @return {@link T }
+     * @author Tequila
+     * @date 2022/12/02 10:20
+     */
+    public static <T> T parse(String body, Class<T> responseClass) {
+        try {
+            return Jackson2Utils.json2obj(body, responseClass);
+        } catch (IOException e) {
+            throw new IdempotentRuntimeException("Deserialize idempotent response error.", e);
+        }
+    }
+
+    /**
+     * 获取RedisTemplate
+     *
+     * @return {@link StringRedisTemplate }
+     * @author Tequila
+     * @date 2022/12/02 10:22
+     */
+    private StringRedisTemplate getRedisTemplate() {
+        StringRedisTemplate locRedisTemplate = this.redisTemplate;
+        if (locRedisTemplate == null) {
+            synchronized (this) {
+                locRedisTemplate = this.redisTemplate;
+                if (locRedisTemplate == null) {
+                    this.redisTemplate = locRedisTemplate = RedisFactory.getStringRedisTemplate();
+                }
+            }
+        }
+
+        return locRedisTemplate;
+    }
+
+    public void setRedisTemplate(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * PROJECT valkyrja2
+ * core/LocalTokenRegistry.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.idempotent;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 进程内令牌登记<br>
+ * 按token的hash分段保存令牌及其到期时间，登记和释放都不需要加锁，
+ * 用于在访问redis之前拦截同一个进程内的重复请求（例如粘性负载均衡下的重复点击）。<br>
+ * 过期的令牌在登记时按一定概率清理。
+ *
+ * @author Tequila
+ * @create 2022/11/30 10:00
+ **/
+public class LocalTokenRegistry {
+
+    /** 默认分段数量，必须是2的幂 */
+    private static final int DEFAULT_STRIPES = 16;
+
+    /** 每次登记触发清理的概率（1/N） */
+    private static final int SWEEP_RATIO = 256;
+
+    /** 分段，value为到期时间（nanoTime） */
+    private final ConcurrentHashMap<String, Long>[] stripes;
+
+    public LocalTokenRegistry() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public LocalTokenRegistry(int stripeCount) {
+        int n = Integer.highestOneBit(Math.max(stripeCount, 1) * 2 - 1);  // 向上取2的幂
+        @SuppressWarnings({"unchecked", "rawtypes"})  // 泛型数组只能通过原始类型创建
+        ConcurrentHashMap<String, Long>[] array = new ConcurrentHashMap[n];
+        for (int i = 0; i < n; i++) {
+            array[i] = new ConcurrentHashMap<>();
+        }
+        this.stripes = array;
+    }
+
+    /**
+     * 登记令牌
+     *
+     * @param token 令牌
+     * @param ttl   有效期（纳秒）
+     * @return boolean 如果令牌已经存在并且没有过期，则返回false
+     * @author Tequila
+     * @date 2022/11/30 10:10
+     */
+    public boolean tryAcquire(String token, long ttl) {
+        ConcurrentHashMap<String, Long> stripe = stripe(token);
+        long now = System.nanoTime();
+        if (ThreadLocalRandom.current().nextInt(SWEEP_RATIO) == 0) sweep(stripe, now);
+
+        Long expireTime = now + ttl;
+        Long old = stripe.putIfAbsent(token, expireTime);
+        if (old == null) return true;
+        if (old - now > 0) return false;  // 令牌仍然有效
+
+        return stripe.replace(token, old, expireTime);  // 已经过期，替换为新的令牌
+    }
+
+    /**
+     * 释放令牌
+     *
+     * @param token 令牌
+     * @author Tequila
+     * @date 2022/11/30 10:15
+     */
+    public void release(String token) {
+        stripe(token).remove(token);
+    }
+
+    /**
+     * 令牌是否存在并且没有过期
+     *
+     * @param token 令牌
+     * @return boolean
+     * @author Tequila
+     * @date 2022/11/30 10:18
+     */
+    public boolean contains(String token) {
+        Long expireTime = stripe(token).get(token);
+        return expireTime != null && expireTime - System.nanoTime() > 0;
+    }
+
+    /**
+     * 当前登记的令牌数量（包括尚未清理的过期令牌）
+     *
+     * @return int
+     * @author Tequila
+     * @date 2022/11/30 10:20
+     */
+    public int size() {
+        int size = 0;
+        for (ConcurrentHashMap<String, Long> stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * 清空所有令牌
+     *
+     * @author Tequila
+     * @date 2022/11/30 10:22
+     */
+    public void clear() {
+        for (ConcurrentHashMap<String, Long> stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    /**
+     * 清理分段中过期的令牌
+     *
+     * @param stripe 分段
+     * @param now    当前时间（nanoTime）
+     * @author Tequila
+     * @date 2022/11/30 10:25
+     */
+    private static void sweep(ConcurrentHashMap<String, Long> stripe, long now) {
+        stripe.entrySet().removeIf(e -> e.getValue() - now <= 0);
+    }
+
+    private ConcurrentHashMap<String, Long> stripe(String token) {
+        int h = token.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+}
@@ -5,7 +5,11 @@ import org.valkyrja2.component.idempotent.exception.DuplicateRequestException;
 import org.valkyrja2.component.idempotent.exception.IdempotentException;
 import org.valkyrja2.component.redis.RedisFactory;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Tequila
@@ -13,8 +17,27 @@ import java.util.concurrent.TimeUnit;
  **/
 public class RedissonIdempotent extends Idempotent {
 
+    /** 未获取锁 */
+    private static final long NO_THREAD = -1L;
+
+    /** 锁的持有者id，使用负数，不会与真实的线程id重复 */
+    private static final AtomicLong OWNER_IDS = new AtomicLong(NO_THREAD);
+
     private RLock lock;
 
+    /**
+     * 获取锁时使用的持有者id<br>
+     * redisson的锁按持有者id可重入，如果使用线程id，容器线程被回收后处理重复请求时会重入成功，
+     * 因此每次获取都使用一个新的id，释放时按该id释放，可以在任意线程中调用
+     */
+    private volatile long ownerThreadId = NO_THREAD;
+
+    /** 获取锁的时间（nanoTime） */
+    private volatile long acquireTime;
+
+    /** 锁到期时间（纳秒） */
+    private volatile long leaseTime;
+
     public RedissonIdempotent(String tokenName) {
         super(tokenName);
     }
@@ -30,8 +53,13 @@ public class RedissonIdempotent extends Idempotent {
 
     @Override
     public Idempotent acquire(long wait, long expire, TimeUnit unit) throws IdempotentException {
+        long ownerId = OWNER_IDS.decrementAndGet();
+        long start = System.nanoTime();
         try {
-            if (lock.tryLock(wait, expire,  unit)) {
+            boolean locked = Boolean.TRUE.equals(lock.tryLockAsync(wait, expire, unit, ownerId).get());
+            recordAcquire(locked, wait, start, expire, unit);
+            if (locked) {
+                this.ownerThreadId = ownerId;
                 return this;
             } else {
                 throw new DuplicateRequestException();
@@ -39,9 +67,26 @@ public class RedissonIdempotent extends Idempotent {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new IdempotentException("RedissonIdempotent acquire has been interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IdempotentException("RedissonIdempotent acquire raise error.", e.getCause());
         }
     }
 
+    @Override
+    public CompletableFuture<Idempotent> acquireAsync(long wait, long expire, TimeUnit unit) {
+        long ownerId = OWNER_IDS.decrementAndGet();
+        long start = System.nanoTime();
+        return lock.tryLockAsync(wait, expire, unit, ownerId).toCompletableFuture().thenApply(locked -> {
+            recordAcquire(Boolean.TRUE.equals(locked), wait, start, expire, unit);
+            if (Boolean.TRUE.equals(locked)) {
+                this.ownerThreadId = ownerId;
+                return this;
+            } else {
+                throw new CompletionException(new DuplicateRequestException());
+            }
+        });
+    }
+
     /**
      * 得到锁
      *
@@ -62,8 +107,37 @@ public class RedissonIdempotent extends Idempotent {
 
     @Override
     public void release() {
-        if (lock != null && lock.isHeldByCurrentThread()) {
-            lock.unlockAsync();
+        if (lock == null) return;
+
+        long threadId = this.ownerThreadId;
+        if (threadId != NO_THREAD) {
+            this.ownerThreadId = NO_THREAD;
+            lock.unlockAsync(threadId);  // 按获取时的持有者id释放，可以在任意线程中调用
+
+            IdempotentMetrics metrics = IdempotentMetrics.forToken(getTokenName());
+            if (metrics != null) metrics.recordRelease(System.nanoTime() - acquireTime, leaseTime);
         }
     }
+
+    /**
+     * 记录获取结果
+     *
+     * @param locked 是否获取成功
+     * @param wait   等待
+     * @param start  开始时间（nanoTime）
+     * @param expire 到期
+     * @param unit   单位
+     * @author Tequila
+     * @date 2022/12/07 10:40
+     */
+    private void recordAcquire(boolean locked, long wait, long start, long expire, TimeUnit unit) {
+        long now = System.nanoTime();
+        if (locked) {
+            this.acquireTime = now;
+            this.leaseTime = expire > 0 ? unit.toNanos(expire) : 0;
+        }
+
+        IdempotentMetrics metrics = IdempotentMetrics.forToken(getTokenName());
+        if (metrics != null) metrics.recordAcquire(locked, wait > 0, now - start);
+    }
 }
@@ -3,7 +3,9 @@ package org.valkyrja2.component.idempotent;
 import org.valkyrja2.component.idempotent.exception.DuplicateRequestException;
 import org.valkyrja2.component.idempotent.exception.IdempotentException;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Request Token Idempotent Utils
@@ -55,6 +57,57 @@ public final class RtiU {
         return (new RedissonIdempotent(token)).acquire(expire);
     }
 
+    /**
+     * 异步幂等，等待令牌期间不占用调用线程
+     * 可以在controller中直接返回基于该future的CompletableFuture，由spring mvc异步处理。
+     * future在redisson的io线程中完成，业务处理需要指定线程池，避免阻塞io线程
+     * <pre>
+     *     return RtiU.idempotentAsync(token).thenApplyAsync(idempotent -&gt; {
+     *         try (Idempotent i = idempotent) {
+     *             return service.submit(form);
+     *         }
+     *     }, executor);
+     * </pre>
+     *
+     * @param token  令牌
+     * @param wait   等待
+     * @param expire 到期
+     * @param unit   单位
+     * @return {@link CompletableFuture }<{@link Idempotent }>
+     * @author Tequila
+     * @date 2022/12/05 10:20
+     */
+    public static CompletableFuture<Idempotent> idempotentAsync(String token, long wait, long expire, TimeUnit unit) {
+        return (new RedissonIdempotent(token)).acquireAsync(wait, expire, unit);
+    }
+
+    /**
+     * 异步幂等
+     *
+     * @param token 令牌
+     * @return {@link CompletableFuture }<{@link Idempotent }>
+     * @author Tequila
+     * @date 2022/12/05 10:22
+     */
+    public static CompletableFuture<Idempotent> idempotentAsync(String token) {
+        return (new RedissonIdempotent(token)).acquireAsync();
+    }
+
+    /**
+     * 幂等执行，重复请求返回第一次请求保存的响应
+     *
+     * @param token         令牌
+     * @param responseClass 响应类型
+     * @param action        执行的操作
+     * @return {@link T }
+     * @throws DuplicateRequestException 第一次请求还在执行中
+     * @author Tequila
+     * @date 2022/12/02 11:15
+     */
+    public static <T> T execute(String token, Class<T> responseClass, Supplier<T> action) throws IdempotentException {
+        return (new RedissonIdempotent(token)).execute(responseClass, action);
+    }
+
     private RtiU() {
         throw new IllegalStateException("Factory class");
     }
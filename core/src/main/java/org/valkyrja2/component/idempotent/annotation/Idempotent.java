@@ -0,0 +1,53 @@
+/*
+ * PROJECT valkyrja2
+ * core/Idempotent.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.idempotent.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 请求幂等注释，由{@link org.valkyrja2.component.idempotent.IdempotentInterceptor}处理<br>
+ * key支持模板表达式，#{...}中为SpEL表达式，可以使用以下方法：
+ * <pre>
+ * param('name')   请求参数
+ * header('name')  请求头
+ * path('name')    路径变量
+ * remoteIp        客户端IP
+ * </pre>
+ * <pre>
+ *     &#64;Idempotent(key = "order:submit:#{param('orderNo')}", expire = 5000)
+ *     &#64;PostMapping("/order/submit")
+ *     public ResponseObject&lt;?&gt; submit(OrderForm form) { ... }
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/12/06 10:00
+ **/
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Idempotent {
+
+    /** 令牌，支持#{...}模板表达式 */
+    String key();
+
+    /** 获取令牌等待时间，-1使用默认配置 */
+    long wait() default -1L;
+
+    /** 令牌到期时间，-1使用默认配置 */
+    long expire() default -1L;
+
+    /** 时间单位 */
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+    /** 重复请求时的错误消息 */
+    String message() default "";
+}
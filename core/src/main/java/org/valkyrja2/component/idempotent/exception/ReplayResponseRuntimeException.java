@@ -0,0 +1,45 @@
+/*
+ * PROJECT valkyrja2
+ * core/ReplayResponseRuntimeException.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.component.idempotent.exception;
+
+import org.valkyrja2.component.idempotent.IdempotentResponseCache;
+
+/**
+ * 重复请求，并且第一次请求已经处理完成
+ * 携带第一次请求保存的响应，调用方可以直接返回该响应
+ *
+ * @author Tequila
+ * @create 2022/12/02 10:30
+ **/
+public class ReplayResponseRuntimeException extends DuplicateRequestRuntimeException {
+
+    private static final long serialVersionUID = -3017742658829513127L;
+
+    /** 第一次请求的响应（json） */
+    private final String body;
+
+    public ReplayResponseRuntimeException(String message, String body) {
+        super(message, null, false, false);  // 用于流程控制，不需要堆栈
+        this.body = body;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * 将响应转换为对象
+     *
+     * @param responseClass 响应类型
+     * @return {@link T }
+     * @author Tequila
+     * @date 2022/12/02 10:35
+     */
+    public <T> T getResponse(Class<T> responseClass) {
+        return IdempotentResponseCache.parse(body, responseClass);
+    }
+}
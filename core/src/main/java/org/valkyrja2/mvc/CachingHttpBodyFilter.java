@@ -6,6 +6,7 @@
 
 package org.valkyrja2.mvc;
 
+import org.springframework.http.MediaType;
 import org.springframework.web.filter.GenericFilterBean;
 
 import javax.servlet.FilterChain;
@@ -15,6 +16,7 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 
 /**
@@ -71,6 +73,26 @@ public class CachingHttpBodyFilter extends GenericFilterBean {
 	 */
 	public static final String CROSS_METHODS = "crossMethods";
 	
+	/**
+	 * web.xml中配置request body在内存中缓存的最大字节数，超过时缓存到临时文件
+	 */
+	public static final String MAX_IN_MEMORY_SIZE = "maxInMemorySize";
+	
+	/**
+	 * web.xml中配置需要缓存request body的请求类型，多个类型用逗号分隔，配置为*&#47;*时缓存所有请求
+	 */
+	public static final String CACHE_CONTENT_TYPES = "cacheContentTypes";
+	
+	/**
+	 * web.xml中配置HttpServletResponse是否使用tee模式（直接输出，只保留body的前一部分）
+	 */
+	public static final String TEE_RESPONSE = "teeResponse";
+	
+	/**
+	 * web.xml中配置tee模式保留body的最大字节数
+	 */
+	public static final String MAX_CAPTURE_SIZE = "maxCaptureSize";
+	
 	/**
 	 * 默认的跨域允许的范围
 	 */
@@ -116,6 +138,26 @@ public class CachingHttpBodyFilter extends GenericFilterBean {
 	 */
 	private String crossMethods = DEFAULT_CROSS_METHODS;
 	
+	/**
+	 * request body在内存中缓存的最大字节数
+	 */
+	private int maxInMemorySize = MultipleReadHttpRequest.DEFAULT_MAX_IN_MEMORY_SIZE;
+	
+	/**
+	 * 需要缓存request body的请求类型
+	 */
+	private List<MediaType> cacheContentTypes = MediaType.parseMediaTypes(MultipleReadHttpRequest.DEFAULT_CACHE_CONTENT_TYPES);
+	
+	/**
+	 * HttpServletResponse使用tee模式
+	 */
+	private boolean teeResponse = false;
+	
+	/**
+	 * tee模式保留body的最大字节数
+	 */
+	private int maxCaptureSize = CachingHttpResponseWrapper.DEFAULT_MAX_CAPTURE_SIZE;
+	
 	@Override
 	protected void initFilterBean() throws ServletException {
 		super.initFilterBean();
@@ -128,7 +170,7 @@ public class CachingHttpBodyFilter extends GenericFilterBean {
             throws IOException, ServletException {
 		ServletRequest request;
 		if (replaceHttpRequest) {
-			request = new MultipleReadHttpRequest((HttpServletRequest) servletRequest);
+			request = new MultipleReadHttpRequest((HttpServletRequest) servletRequest, maxInMemorySize, cacheContentTypes);
 		} else {
 			request = servletRequest;
 		}
@@ -142,12 +184,22 @@ public class CachingHttpBodyFilter extends GenericFilterBean {
 		
 		ServletResponse response = null;
 		if (replaceHttpResponse == true) {
-			response = new CachingHttpResponseWrapper((HttpServletResponse) servletResponse);
+			response = new CachingHttpResponseWrapper((HttpServletResponse) servletResponse, teeResponse, maxCaptureSize);
 		} else {
 			response = servletResponse;
 		}
         
-		chain.doFilter(request, response);
+		try {
+			chain.doFilter(request, response);
+			if (response instanceof CachingHttpResponseWrapper && !request.isAsyncStarted()) {
+				/* 处理方法通过getWriter输出且没有flush时，数据还在writer的缓冲区中，需要写入原始的response */
+				response.flushBuffer();
+			}
+		} finally {
+			if (request instanceof MultipleReadHttpRequest) {
+				((MultipleReadHttpRequest) request).cleanup();
+			}
+		}
     }
 	
 	/**
@@ -160,6 +212,14 @@ public class CachingHttpBodyFilter extends GenericFilterBean {
 		crossDomain = getStringInitParameter(CROSS_DOMAIN, DEFAULT_CROSS_DOMAIN);
 		crossHeaders = getStringInitParameter(CROSS_HEADERS, DEFAULT_CROSS_HEADERS);
 		crossMethods = getStringInitParameter(CROSS_METHODS, DEFAULT_CROSS_METHODS);
+		maxInMemorySize = Integer.parseInt(getStringInitParameter(MAX_IN_MEMORY_SIZE,
+				String.valueOf(MultipleReadHttpRequest.DEFAULT_MAX_IN_MEMORY_SIZE)));
+		cacheContentTypes = MediaType.parseMediaTypes(getStringInitParameter(CACHE_CONTENT_TYPES,
+				MultipleReadHttpRequest.DEFAULT_CACHE_CONTENT_TYPES));
+		if (cacheContentTypes.contains(MediaType.ALL)) cacheContentTypes = null;
+		teeResponse = getBooleanInitParameter(TEE_RESPONSE, false);
+		maxCaptureSize = Integer.parseInt(getStringInitParameter(MAX_CAPTURE_SIZE,
+				String.valueOf(CachingHttpResponseWrapper.DEFAULT_MAX_CAPTURE_SIZE)));
 	}
 	
 	private boolean getBooleanInitParameter(String paramName, boolean defaultValue) {
@@ -16,40 +16,98 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 
 /**
- * 支持多次从HttpServletResponse获取返回值的Wrapper对象
- * 
+ * 支持多次从HttpServletResponse获取返回值的Wrapper对象<br>
+ * 默认模式下缓存全部body，在flush时一次写入原始的response；
+ * tee模式下直接写入原始的response，只保留body的前maxCaptureSize个字节，适用于流式输出和大数据导出。
+ *
  * @author Tequila
  *
  */
 public class CachingHttpResponseWrapper extends HttpServletResponseWrapper implements CachingResponse {
 
+	/** tee模式默认保留的最大字节数（64K） */
+	public static final int DEFAULT_MAX_CAPTURE_SIZE = 64 * 1024;
+
 	private ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
 	private HttpServletResponse response;
 
+	/** 是否使用tee模式 */
+	private final boolean tee;
+
+	/** tee模式保留的最大字节数 */
+	private final int maxCaptureSize;
+
+	/** 共享的输出流 */
+	private ServletOutputStreamWrapper outputStream;
+
+	/** 共享的writer */
+	private PrintWriter writer;
+
 	public CachingHttpResponseWrapper(HttpServletResponse response) {
+		this(response, false, DEFAULT_MAX_CAPTURE_SIZE);
+	}
+
+	public CachingHttpResponseWrapper(HttpServletResponse response, boolean tee, int maxCaptureSize) {
 		super(response);
 		this.response = response;
+		this.tee = tee;
+		this.maxCaptureSize = maxCaptureSize;
 	}
 
 	public byte[] getBody() {
 		return byteArrayOutputStream.toByteArray();
 	}
 
+	/**
+	 * tee模式下body是否超过了保留的最大字节数
+	 *
+	 * @return boolean
+	 * @author Tequila
+	 * @date 2022/12/07 15:00
+	 */
+	@Override
+	public boolean isTruncated() {
+		return outputStream != null && outputStream.truncated;
+	}
+
 	@Override
-	public ServletOutputStream getOutputStream() {
-		return new ServletOutputStreamWrapper(this.byteArrayOutputStream, this.response);
+	public ServletOutputStream getOutputStream() throws IOException {
+		if (this.outputStream == null) {
+			if (tee) {
+				this.outputStream = new TeeServletOutputStream(this.byteArrayOutputStream, this.response, this.maxCaptureSize);
+			} else {
+				this.outputStream = new ServletOutputStreamWrapper(this.byteArrayOutputStream, this.response);
+			}
+		}
+		return this.outputStream;
 	}
 
 	@Override
 	public PrintWriter getWriter() throws IOException {
-		return new PrintWriter(
-				new OutputStreamWriter(this.byteArrayOutputStream, this.response.getCharacterEncoding()));
+		if (this.writer == null) {
+			this.writer = new PrintWriter(
+					new OutputStreamWriter(getOutputStream(), this.response.getCharacterEncoding()));
+		}
+		return this.writer;
+	}
+
+	@Override
+	public void flushBuffer() throws IOException {
+		if (this.writer != null) {
+			this.writer.flush();
+		} else if (this.outputStream != null) {
+			this.outputStream.flush();
+		}
+		super.flushBuffer();
 	}
 
 	private static class ServletOutputStreamWrapper extends ServletOutputStream {
 
-		private ByteArrayOutputStream outputStream;
-		private HttpServletResponse response;
+		protected ByteArrayOutputStream outputStream;
+		protected HttpServletResponse response;
+
+		/** 是否有没有保留的数据 */
+		protected boolean truncated;
 
 		public ServletOutputStreamWrapper(ByteArrayOutputStream byteArrayOutputStream, HttpServletResponse response) {
 			this.outputStream = byteArrayOutputStream;
@@ -71,14 +129,79 @@ public class CachingHttpResponseWrapper extends HttpServletResponseWrapper imple
 			this.outputStream.write(b);
 		}
 
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.outputStream.write(b, off, len);
+		}
+
 		@Override
 		public void flush() throws IOException {
 			if (!this.response.isCommitted()) {
-				byte[] body = this.outputStream.toByteArray();
 				ServletOutputStream outputStream = this.response.getOutputStream();
-				outputStream.write(body);
+				this.outputStream.writeTo(outputStream);
 				outputStream.flush();
 			}
 		}
 	}
+
+	/**
+	 * tee模式的输出流，直接写入原始的response，同时保留前maxCaptureSize个字节
+	 *
+	 * @author Tequila
+	 * @create 2022/12/07 14:50
+	 **/
+	private static class TeeServletOutputStream extends ServletOutputStreamWrapper {
+
+		/** 原始的输出流 */
+		private final ServletOutputStream target;
+
+		/** 保留的最大字节数 */
+		private final int maxCaptureSize;
+
+		public TeeServletOutputStream(ByteArrayOutputStream byteArrayOutputStream, HttpServletResponse response,
+									  int maxCaptureSize) throws IOException {
+			super(byteArrayOutputStream, response);
+			this.target = response.getOutputStream();
+			this.maxCaptureSize = maxCaptureSize;
+		}
+
+		@Override
+		public boolean isReady() {
+			return this.target.isReady();
+		}
+
+		@Override
+		public void setWriteListener(WriteListener listener) {
+			this.target.setWriteListener(listener);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.target.write(b);
+			if (this.outputStream.size() < this.maxCaptureSize) {
+				this.outputStream.write(b);
+			} else {
+				this.truncated = true;
+			}
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.target.write(b, off, len);
+
+			int capture = Math.min(len, this.maxCaptureSize - this.outputStream.size());
+			if (capture > 0) this.outputStream.write(b, off, capture);
+			if (capture < len) this.truncated = true;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			this.target.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.target.close();
+		}
+	}
 }
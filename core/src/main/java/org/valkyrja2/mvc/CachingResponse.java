@@ -16,4 +16,15 @@ public interface CachingResponse {
 	 * @date 2022/07/13 22:59
 	 */
 	byte[] getBody();
+
+	/**
+	 * {@link #getBody()}是否只是body的前一部分（tee模式下超过了保留的最大字节数）
+	 *
+	 * @return boolean
+	 * @author Tequila
+	 * @date 2022/12/09 16:40
+	 */
+	default boolean isTruncated() {
+		return false;
+	}
 }
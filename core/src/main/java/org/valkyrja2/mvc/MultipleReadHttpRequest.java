@@ -7,59 +7,193 @@
 package org.valkyrja2.mvc;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.DeferredFileOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
 import java.io.*;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
- * 提供可多次访问HttpServletRequest中body对象的HttpServletRequestWrapper类
+ * 提供可多次访问HttpServletRequest中body对象的HttpServletRequestWrapper类<br>
+ * body在第一次读取时才缓存，所有读取共享同一份缓存；超过maxInMemorySize的body保存到临时文件中，
+ * 使用完成后需要调用{@link #cleanup()}删除临时文件。<br>
+ * 只缓存cacheContentTypes中的请求类型（例如json、xml），其它类型（例如文件上传）直接读取原始的输入流。
  *
  * @author Tequila
  * @create 2022/07/13 22:58
  **/
 public class MultipleReadHttpRequest extends HttpServletRequestWrapper {
-	private ByteArrayOutputStream cachedBytes;
+
+    private static final Logger log = LoggerFactory.getLogger(MultipleReadHttpRequest.class);
+
+    /** 默认内存中缓存的最大字节数（1M） */
+    public static final int DEFAULT_MAX_IN_MEMORY_SIZE = 1024 * 1024;
+
+    /** 默认需要缓存的请求类型 */
+    public static final String DEFAULT_CACHE_CONTENT_TYPES =
+            "application/json, application/*+json, application/xml, application/*+xml, text/*, application/x-www-form-urlencoded";
+
+    /** 默认需要缓存的请求类型 */
+    private static final List<MediaType> DEFAULT_MEDIA_TYPES =
+            Collections.unmodifiableList(MediaType.parseMediaTypes(DEFAULT_CACHE_CONTENT_TYPES));
+
+    /** 临时文件前缀 */
+    private static final String TEMP_FILE_PREFIX = "valkyrja2-body-";
+
+    /** 临时文件后缀 */
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    /** 内存中缓存的最大字节数 */
+    private final int maxInMemorySize;
+
+    /** 需要缓存的请求类型，为null时缓存所有请求 */
+    private final List<MediaType> cacheContentTypes;
+
+    /** 是否已经缓存 */
+    private boolean cached;
+
+    /** 内存中缓存的body，所有读取共享 */
+    private byte[] cachedBytes;
+
+    /** 超过内存限制时缓存body的临时文件 */
+    private File cachedFile;
+
+    /** 读取临时文件时打开的输入流，调用者通常不会关闭，在{@link #cleanup()}时统一关闭 */
+    private final List<InputStream> fileStreams = new ArrayList<>();
 
     public MultipleReadHttpRequest(HttpServletRequest request) {
+        this(request, DEFAULT_MAX_IN_MEMORY_SIZE, DEFAULT_MEDIA_TYPES);
+    }
+
+    public MultipleReadHttpRequest(HttpServletRequest request, int maxInMemorySize, List<MediaType> cacheContentTypes) {
         super(request);
+        this.maxInMemorySize = maxInMemorySize;
+        this.cacheContentTypes = cacheContentTypes;
     }
 
     @Override
     public ServletInputStream getInputStream() throws IOException {
-        if (cachedBytes == null)
+        if (!isCacheable()) return super.getInputStream();
+
+        if (!cached)
             cacheInputStream();
 
-        return new CachedServletInputStream();
+        if (cachedFile != null) {
+            InputStream input = new BufferedInputStream(Files.newInputStream(cachedFile.toPath()));
+            fileStreams.add(input);
+            return new CachedServletInputStream(input, cachedFile.length());
+        } else {
+            return new CachedServletInputStream(new ByteArrayInputStream(cachedBytes), cachedBytes.length);
+        }
     }
 
     @Override
     public BufferedReader getReader() throws IOException{
+        if (!isCacheable()) return super.getReader();
+
         return new BufferedReader(new InputStreamReader(getInputStream()));
     }
 
+    /**
+     * 关闭读取临时文件的输入流，并删除缓存body的临时文件
+     *
+     * @author Tequila
+     * @date 2022/12/07 14:10
+     */
+    public void cleanup() {
+        for (InputStream input : fileStreams) {
+            IOUtils.closeQuietly(input);
+        }
+        fileStreams.clear();
+
+        File file = this.cachedFile;
+        if (file != null) {
+            this.cachedFile = null;
+            this.cached = false;
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                log.warn("Delete request body temp file {} error", file, e);
+            }
+        }
+    }
+
+    /**
+     * 当前请求是否需要缓存，不缓存的请求body只能读取一次
+     *
+     * @return boolean
+     * @author Tequila
+     * @date 2022/12/07 14:00
+     */
+    public boolean isCacheable() {
+        if (cached) return true;
+        if (cacheContentTypes == null) return true;
+
+        String contentType = getContentType();
+        if (contentType == null) return true;  // 没有body的请求，缓存的开销可以忽略
+
+        MediaType mediaType;
+        try {
+            mediaType = MediaType.parseMediaType(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        for (MediaType type : cacheContentTypes) {
+            if (type.includes(mediaType)) return true;
+        }
+        return false;
+    }
+
     private void cacheInputStream() throws IOException {
-        /* Cache the inputstream in order to read it multiple times. For
-         * convenience, I use apache.commons IOUtils
-         */
-        cachedBytes = new ByteArrayOutputStream();
-        IOUtils.copy(super.getInputStream(), cachedBytes);
+        /* 超过内存限制的部分写入临时文件，不超过时只在内存中保存 */
+        DeferredFileOutputStream output = new DeferredFileOutputStream(maxInMemorySize,
+                TEMP_FILE_PREFIX, TEMP_FILE_SUFFIX, null);
+        try {
+            IOUtils.copy(super.getInputStream(), output);
+        } catch (IOException e) {
+            output.close();
+            if (!output.isInMemory()) Files.deleteIfExists(output.getFile().toPath());  // 读取失败时删除已经写入的临时文件
+            throw e;
+        }
+        output.close();
+
+        if (output.isInMemory()) {
+            cachedBytes = output.getData();
+        } else {
+            cachedFile = output.getFile();
+            if (log.isDebugEnabled()) log.debug("Request body exceeds {} bytes, cached to {}", maxInMemorySize, cachedFile);
+        }
+        cached = true;
     }
 
     /* An inputstream which reads the cached request body */
-    public class CachedServletInputStream extends ServletInputStream {
-        private ByteArrayInputStream input;
+    public static class CachedServletInputStream extends ServletInputStream {
+        private final InputStream input;
+
+        /** body长度 */
+        private final long length;
 
-        public CachedServletInputStream() {
-            /* create a new input stream from the cached request body */
-            input = new ByteArrayInputStream(cachedBytes.toByteArray());
+        /** 已经读取的字节数 */
+        private long position;
+
+        public CachedServletInputStream(InputStream input, long length) {
+            this.input = input;
+            this.length = length;
         }
 
         @Override
         public boolean isFinished() {
-            return true;
+            return position >= length;
         }
 
         @Override
@@ -72,7 +206,33 @@ public class MultipleReadHttpRequest extends HttpServletRequestWrapper {
 
         @Override
         public int read() throws IOException {
-            return input.read();
+            int b = input.read();
+            if (b >= 0) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = input.read(b, off, len);
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = input.skip(n);
+            if (skipped > 0) position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(length - position, Integer.MAX_VALUE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            input.close();
         }
     }
 }
@@ -10,22 +10,22 @@ import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyOrder;
 import org.valkyrja2.security.SecurityConst;
+import org.valkyrja2.util.HostIdentity;
 import org.valkyrja2.util.NetworkUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.security.Security;
 import java.util.Date;
-import java.util.UUID;
 
 /**
  * http请求的上下文数据<br>
  *
  * 包含：<br>
  * <pre>
- * requestId        请求Id		每次请求自动生成
- * hostId           服务器名称 	读取计算机名
- * hostIPAddress    服务器IP地址	读取当前计算机的IP地址
+ * requestId        请求Id		每次请求自动生成，默认为ULID，可通过RequestContextFactory.setRequestIdGenerator替换
+ * hostId           服务器名称 	读取计算机名（HostIdentity缓存）
+ * hostIPAddress    服务器IP地址	读取当前计算机的IP地址（HostIdentity缓存）
  * receiveDate      数据接收的时间	系统时间
  * remoteIPAddress  请求IP地址	从HttpServletRequest中读取
  * httpRequest      Request对象	HttpServletRequest
@@ -77,9 +77,10 @@ public class RequestContext {
 		this.httpRequest = httpRequest;
 		this.httpResponse = httpResponse;
 
-		this.requestId = UUID.randomUUID().toString();
-		this.hostId = NetworkUtils.getHostName();
-		this.hostIPAddress = NetworkUtils.getHostIP();
+		HostIdentity host = HostIdentity.getInstance();
+		this.requestId = RequestContextFactory.nextRequestId();
+		this.hostId = host.getHostName();
+		this.hostIPAddress = host.getHostIP();
 		this.receiveDate = new Date(System.currentTimeMillis());
 
 		if (httpRequest != null) {
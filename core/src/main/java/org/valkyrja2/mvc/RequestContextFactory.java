@@ -9,6 +9,8 @@ package org.valkyrja2.mvc;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.valkyrja2.util.IdGenerator;
+import org.valkyrja2.util.UlidGenerator;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -34,6 +36,9 @@ public final class RequestContextFactory {
 	/** 请求上下文中 */
 	private static RequestContext requestContext;
 
+	/** requestId生成器，默认使用按时间排序的ULID */
+	private static volatile IdGenerator requestIdGenerator = new UlidGenerator();
+
     private RequestContextFactory() {
 		throw new IllegalStateException("Factory class");
     }
@@ -65,6 +70,17 @@ public final class RequestContextFactory {
     	}
     }
 
+	/**
+	 * 生成一个新的requestId
+	 *
+	 * @return {@link String }
+	 * @author Tequila
+	 * @date 2022/12/07 16:50
+	 */
+	public static String nextRequestId() {
+		return requestIdGenerator.nextId();
+	}
+
 	/**
 	 * 根据HttpServletRequest创建一个RequestContext对象，并注册
 	 *
@@ -172,4 +188,12 @@ public final class RequestContextFactory {
 	public static void setRequestContext(RequestContext requestContext) {
 		RequestContextFactory.requestContext = requestContext;
 	}
+
+	public static IdGenerator getRequestIdGenerator() {
+		return requestIdGenerator;
+	}
+
+	public static void setRequestIdGenerator(IdGenerator requestIdGenerator) {
+		RequestContextFactory.requestIdGenerator = requestIdGenerator != null ? requestIdGenerator : new UlidGenerator();
+	}
 }
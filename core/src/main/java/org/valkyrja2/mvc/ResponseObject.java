@@ -16,7 +16,7 @@ import org.valkyrja2.exception.BizRuntimeException;
 import org.valkyrja2.exception.ValidateException;
 import org.valkyrja2.util.ClassUtils;
 import org.valkyrja2.util.Jackson2Utils;
-import org.valkyrja2.util.NetworkUtils;
+import org.valkyrja2.util.HostIdentity;
 
 import javax.servlet.http.HttpServletResponse;
 import java.beans.Transient;
@@ -81,7 +81,8 @@ public class ResponseObject<T> {
 			this.requestId = context.getRequestId();
 			this.hostId = context.getHostId();
 		} else {
-			this.hostId = NetworkUtils.getHostName();
+			this.requestId = RequestContextFactory.nextRequestId();
+			this.hostId = HostIdentity.getInstance().getHostName();
 		}
 		this.code = requestCode.code();
 		this.message = requestCode.message();
@@ -7,8 +7,10 @@
 package org.valkyrja2.mvc.sdk;
 
 import com.fasterxml.jackson.core.JacksonException;
+import org.apache.http.HttpHeaders;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.util.ReflectionUtils;
 import org.valkyrja2.util.*;
 
 import java.io.IOException;
@@ -22,7 +24,9 @@ import java.util.Map;
 import static org.valkyrja2.mvc.sdk.ApiConst.*;
 
 /**
- * api client对象
+ * api client对象<br>
+ * 内部服务之间调用时，可以通过{@link #setDataFormat(DataFormat)}选择smile或者cbor二进制格式：
+ * 请求通过Accept要求服务端返回二进制格式，{@link #callDataAPI(String, String, Object, Class)}的请求内容也使用该格式编码。
  *
  * @author Tequila
  * @create 2022/07/27 15:49
@@ -31,6 +35,13 @@ public abstract class AbstractApiClient {
 
     private ApiConfig apiConfig;
 
+    /** 请求和返回使用的数据格式 */
+    private DataFormat dataFormat = DataFormat.JSON;
+
+    /** 子类是否覆盖了{@link #json2response(String, Class)}，覆盖时json返回仍按字符串交给子类解析 */
+    private final boolean jsonHookOverridden = ReflectionUtils.findMethod(getClass(), "json2response", String.class, Class.class)
+            .getDeclaringClass() != AbstractApiClient.class;
+
     protected AbstractApiClient() {
 
     }
@@ -68,7 +79,7 @@ public abstract class AbstractApiClient {
         logInfo(funcName, S_INPUT, params);
         HttpResult httpResult;
         try {
-            httpResult = HttpUtils.doPostReturnHttpResult(apiUrl, null, params);
+            httpResult = HttpUtils.doPostReturnHttpResult(apiUrl, acceptHeader(), params);
         } catch (IOException e) {
             logError(funcName, S_ERROR, params, e);
             throw new ApiRuntimeException(msgCallApiError(apiUrl), e);
@@ -92,7 +103,7 @@ public abstract class AbstractApiClient {
         logInfo(funcName, S_INPUT, reqJson);
         HttpResult httpResult;
         try {
-            httpResult = HttpUtils.doPostJsonReturnHttpResult(apiUrl, null, reqJson);
+            httpResult = HttpUtils.doPostJsonReturnHttpResult(apiUrl, acceptHeader(), reqJson);
         } catch (IOException e) {
             logError(funcName, S_ERROR, reqJson, e);
             throw new ApiRuntimeException(msgCallApiError(apiUrl), e);
@@ -100,6 +111,30 @@ public abstract class AbstractApiClient {
         return handleHttpResult(httpResult, apiUrl, funcName, returnType);
     }
 
+    /**
+     * 调用API，请求对象使用{@link #getDataFormat()}的格式编码
+     *
+     * @param api        api
+     * @param funcName   函数名字
+     * @param request    请求对象
+     * @param returnType 返回类型
+     * @return {@link T }
+     * @author Tequila
+     * @date 2022/12/09 14:40
+     */
+    protected <T extends ApiBaseResponse<?>> T callDataAPI(String api, String funcName, Object request, Class<T> returnType) {
+        String apiUrl = apiConfig.getApiPath(api);
+        logInfo(funcName, S_INPUT, request);
+        HttpResult httpResult;
+        try {
+            httpResult = HttpUtils.doPostDataReturnHttpResult(apiUrl, null, request, dataFormat);
+        } catch (IOException e) {
+            logError(funcName, S_ERROR, request, e);
+            throw new ApiRuntimeException(msgCallApiError(apiUrl), e);
+        }
+        return handleHttpResult(httpResult, apiUrl, funcName, returnType);
+    }
+
     /**
      * 调用带有文件的API
      *
@@ -133,7 +168,8 @@ public abstract class AbstractApiClient {
 
 
     /**
-     * 处理http返回结果
+     * 处理http返回结果<br>
+     * json返回内容默认通过{@link #json2response(byte[], Class)}解析，子类覆盖了{@link #json2response(String, Class)}时使用覆盖的方法
      *
      * @param httpResult http结果
      * @param apiUrl     api url
@@ -144,19 +180,69 @@ public abstract class AbstractApiClient {
      * @date 2022/07/27 17:28
      */
     protected <T extends ApiBaseResponse<?>> T handleHttpResult(HttpResult httpResult, String apiUrl, String funcName, Class<T> returnType) {
-        String json = httpResult.getContentString();
+        DataFormat format = httpResult.getDataFormat();
+        if (format != null && format.isBinary() && format.isAvailable()) {
+            return handleBinaryResult(httpResult, apiUrl, funcName, returnType);
+        }
+
         if (httpResult.getHttpStatus().is2xxSuccessful()) {
-            logInfo(funcName, S_OUTPUT, json);
+            if (getLogger().isInfoEnabled()) logInfo(funcName, S_OUTPUT, httpResult.getContentString());
         } else {
             logError(funcName, S_ERROR, httpResult.toString(), null);
         }
         try {
-            return json2response(json, returnType);
+            if (jsonHookOverridden) {
+                return json2response(httpResult.getContentString(), returnType);
+            }
+            return json2response(httpResult.getContent(), returnType);  // 直接解析字节，不需要先转换成字符串
         } catch (ApiResponseParseException e) {
             throw new ApiRuntimeException(msgCallApiError(apiUrl), new UnknownServiceException(httpResult.toString()));
         }
     }
 
+    /**
+     * 处理二进制格式（smile/cbor）的http返回结果
+     *
+     * @param httpResult http结果
+     * @param apiUrl     api url
+     * @param funcName   函数名字
+     * @param returnType 返回类型
+     * @return {@link T }
+     * @author Tequila
+     * @date 2022/12/09 14:45
+     */
+    protected <T extends ApiBaseResponse<?>> T handleBinaryResult(HttpResult httpResult, String apiUrl, String funcName, Class<T> returnType) {
+        T response;
+        try {
+            response = binary2response(httpResult, returnType);
+        } catch (ApiResponseParseException e) {
+            logError(funcName, S_ERROR, "HTTP Code: " + httpResult.getHttpCode() + ", " + httpResult.getContentType(), e);
+            throw new ApiRuntimeException(msgCallApiError(apiUrl), e);
+        }
+
+        if (httpResult.getHttpStatus().is2xxSuccessful()) {
+            logInfo(funcName, S_OUTPUT, response);
+        } else {
+            logError(funcName, S_ERROR, response, null);
+        }
+        return response;
+    }
+
+    /**
+     * 要求服务端按{@link #getDataFormat()}返回的header
+     *
+     * @return {@link Map }<{@link String }, {@link String }> json格式时返回null
+     * @author Tequila
+     * @date 2022/12/09 14:48
+     */
+    private Map<String, String> acceptHeader() {
+        if (!dataFormat.isBinary()) return null;
+
+        Map<String, String> header = new HashMap<>();
+        header.put(HttpHeaders.ACCEPT, dataFormat.getMediaType());
+        return header;
+    }
+
     /**
      * 将json转换成返回对象
      *
@@ -186,6 +272,66 @@ public abstract class AbstractApiClient {
         return response;
     }
 
+    /**
+     * 将json数据转换成返回对象<br>
+     * {@link #handleHttpResult(HttpResult, String, String, Class)}默认使用该方法直接解析返回的字节，
+     * 子类覆盖了{@link #json2response(String, Class)}时改为调用覆盖的方法，该方法不再被调用
+     *
+     * @param json       json数据
+     * @param returnType 返回类型
+     * @return {@link T }
+     * @throws ApiResponseParseException api响应解析异常
+     * @author Tequila
+     * @date 2022/12/09 15:30
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends ApiBaseResponse<?>> T json2response(byte[] json, Class<T> returnType) throws ApiResponseParseException {
+        T response;
+        try {
+            response = Jackson2Utils.json2obj(json, returnType);
+        } catch (Exception e1) {
+            getLogger().warn("Can not parse response json to {}", returnType, e1);
+            try {
+                Map<String, Object> map = Jackson2Utils.json2obj(json, HashMap.class);
+                response = BeanUtils.map2bean(map, returnType);
+            } catch (InstantiationException | IllegalAccessException | IOException | InvocationTargetException e2) {
+                e1.addSuppressed(e2);
+                throw new ApiResponseParseException(e1);
+            }
+        }
+
+        return response;
+    }
+
+    /**
+     * 将二进制格式（smile/cbor）的返回内容转换成返回对象，与json一样无法直接转换时先解码成Map再转换
+     *
+     * @param httpResult http结果
+     * @param returnType 返回类型
+     * @return {@link T }
+     * @throws ApiResponseParseException api响应解析异常
+     * @author Tequila
+     * @date 2022/12/09 17:05
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends ApiBaseResponse<?>> T binary2response(HttpResult httpResult, Class<T> returnType) throws ApiResponseParseException {
+        T response;
+        try {
+            response = httpResult.readContent(returnType);
+        } catch (Exception e1) {
+            getLogger().warn("Can not parse response {} to {}", httpResult.getContentType(), returnType, e1);
+            try {
+                Map<String, Object> map = httpResult.readContent(HashMap.class);
+                response = BeanUtils.map2bean(map, returnType);
+            } catch (InstantiationException | IllegalAccessException | IOException | InvocationTargetException e2) {
+                e1.addSuppressed(e2);
+                throw new ApiResponseParseException(e1);
+            }
+        }
+
+        return response;
+    }
+
     /**
      * obj2json
      *
@@ -259,6 +405,14 @@ public abstract class AbstractApiClient {
         this.apiConfig = apiConfig;
     }
 
+    public DataFormat getDataFormat() {
+        return dataFormat;
+    }
+
+    public void setDataFormat(DataFormat dataFormat) {
+        this.dataFormat = dataFormat != null ? dataFormat.availableOrJson() : DataFormat.JSON;  // 缺少对应的jackson-dataformat模块时使用json
+    }
+
     /**
      * 获取日志记录器
      *
@@ -8,8 +8,10 @@ package org.valkyrja2.mvc.spring;
 
 import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import org.springframework.web.servlet.ModelAndView;
+import org.valkyrja2.mvc.RequestContext;
 import org.valkyrja2.mvc.RequestContextFactory;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.util.List;
@@ -34,12 +36,20 @@ import java.util.ListIterator;
  */
 public class ControllerInterceptorHandler implements AsyncHandlerInterceptor {
 
+	/** 异步请求时保存RequestContext的request attribute */
+	public static final String ATTR_REQUEST_CONTEXT = ControllerInterceptorHandler.class.getName() + ".REQUEST_CONTEXT";
+
 	private List<AsyncHandlerInterceptor> interceptors;
 
 	@Override
 	public boolean preHandle(HttpServletRequest request,
 			HttpServletResponse response, Object handler) throws Exception {
-		RequestContextFactory.registerContext(request, response); // 默认注册RequestContext
+		Object asyncContext = request.getAttribute(ATTR_REQUEST_CONTEXT);
+		if (request.getDispatcherType() == DispatcherType.ASYNC && asyncContext instanceof RequestContext) {
+			RequestContextFactory.registerContext((RequestContext) asyncContext);  // 异步处理完成后重新分派，沿用原来的RequestContext
+		} else {
+			RequestContextFactory.registerContext(request, response); // 默认注册RequestContext
+		}
 
 		if (interceptors != null && !interceptors.isEmpty()) {
 			for (AsyncHandlerInterceptor interceptor: interceptors) {
@@ -69,17 +79,46 @@ public class ControllerInterceptorHandler implements AsyncHandlerInterceptor {
 	public void afterCompletion(HttpServletRequest request,
 			HttpServletResponse response, Object handler, Exception ex)
 			throws Exception {
-		ListIterator<AsyncHandlerInterceptor> li = interceptors.listIterator(interceptors.size());
-		while (li.hasPrevious()) {
-			AsyncHandlerInterceptor interceptor = li.previous();
-			interceptor.afterCompletion(request, response, handler, ex);
+		if (interceptors != null && !interceptors.isEmpty()) {
+			ListIterator<AsyncHandlerInterceptor> li = interceptors.listIterator(interceptors.size());
+			while (li.hasPrevious()) {
+				AsyncHandlerInterceptor interceptor = li.previous();
+				interceptor.afterCompletion(request, response, handler, ex);
+			}
 		}
 
+		request.removeAttribute(ATTR_REQUEST_CONTEXT);
 		RequestContextFactory.unregistContext();
 
 		AsyncHandlerInterceptor.super.afterCompletion(request, response, handler, ex);
 	}
 
+	/**
+	 * 开始异步处理，当前线程将被容器回收
+	 * 将RequestContext保存到request中，并清除当前线程的数据，重新分派时再恢复
+	 *
+	 * @param request  请求
+	 * @param response 响应
+	 * @param handler  处理程序
+	 * @author Tequila
+	 * @date 2022/12/05 10:40
+	 */
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request,
+			HttpServletResponse response, Object handler) throws Exception {
+		if (interceptors != null && !interceptors.isEmpty()) {
+			ListIterator<AsyncHandlerInterceptor> li = interceptors.listIterator(interceptors.size());
+			while (li.hasPrevious()) {
+				AsyncHandlerInterceptor interceptor = li.previous();
+				interceptor.afterConcurrentHandlingStarted(request, response, handler);
+			}
+		}
+
+		RequestContext context = RequestContextFactory.getContext();
+		if (context != null) request.setAttribute(ATTR_REQUEST_CONTEXT, context);
+		RequestContextFactory.unregistContext();
+	}
+
 	public List<AsyncHandlerInterceptor> getInterceptors() {
 		return interceptors;
 	}
@@ -7,10 +7,13 @@
 package org.valkyrja2.mvc.spring;
 
 import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
@@ -32,20 +35,27 @@ import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandl
 import org.springframework.web.servlet.mvc.method.annotation.RequestResponseBodyMethodProcessor;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 import org.valkyrja2.mvc.ResponseObject;
+import org.valkyrja2.util.DataFormat;
+import org.valkyrja2.util.Jackson2Utils;
 import org.valkyrja2.util.JsonFilterEx;
 import org.valkyrja2.util.JsonFilterExSerialization;
 import org.valkyrja2.util.JsonFilterGroup;
-import org.valkyrja2.util.JsonFilterOption;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.lang.annotation.Annotation;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
- * SpringMVC 返回值处理，支持使用JsonFilterEx进行返回值处理
+ * SpringMVC 返回值处理，支持使用JsonFilterEx进行返回值处理<br>
+ * 请求的Accept明确要求application/x-jackson-smile或者application/cbor时，使用相同的过滤配置输出二进制格式，
+ * 供内部服务之间调用；其它请求仍然输出json。
  *
  * @author Tequila
  * @create 2022/07/14 00:09
@@ -55,10 +65,20 @@ public class SpringJsonFilterReturnValueHandle implements SpringMVCReturnValueHa
 
 	private SpringMVCReturnValueAdapter adapter;
 
+	/** 每个方法返回值的处理配置 */
+	private final Map<MethodParameter, HandlerConfig> configs = new ConcurrentHashMap<>();
+
+	/** 是否使用Afterburner生成的属性访问器，默认由{@link Jackson2Utils#isUseAfterburner()}决定 */
+	private boolean afterburner = Jackson2Utils.isUseAfterburner();
+
+	/** 是否支持smile/cbor二进制格式 */
+	private boolean binaryFormat = true;
+
 	@Override
 	@SuppressWarnings("unchecked")
 	public boolean supportsReturnType(MethodParameter returnType) {
 		return isResponseBody(returnType)
+				&& !isAsyncReturnType(returnType)  // 异步结果返回之后再处理
 				&& (hasAnnotation(returnType, JsonFilterGroup.class, JsonFilterEx.class));
 	}
 
@@ -67,26 +87,55 @@ public class SpringJsonFilterReturnValueHandle implements SpringMVCReturnValueHa
 			NativeWebRequest webRequest) throws IOException, HttpMediaTypeNotAcceptableException, HttpMessageNotWritableException {
 		mavContainer.setRequestHandled(true);
 
-		for (ResponseBodyAdvice<Object> ad: getAdapter().getAdvices()) {
-			if (ad.supports(returnType, null)) {
-				returnValue = ad.beforeBodyWrite(returnValue, returnType, MediaType.APPLICATION_JSON, null,
-						new ServletServerHttpRequest(webRequest.getNativeRequest(HttpServletRequest.class)),
-						new ServletServerHttpResponse(webRequest.getNativeResponse(HttpServletResponse.class)));
+		HandlerConfig config = getConfig(returnType);
+		DataFormat format = binaryFormat
+				? DataFormat.negotiate(webRequest.getHeader(HttpHeaders.ACCEPT))
+				: DataFormat.JSON;
+		if (!config.advices.isEmpty()) {
+			ServletServerHttpRequest request = new ServletServerHttpRequest(webRequest.getNativeRequest(HttpServletRequest.class));
+			ServletServerHttpResponse response = new ServletServerHttpResponse(webRequest.getNativeResponse(HttpServletResponse.class));
+			MediaType mediaType = format.isBinary() ? MediaType.valueOf(format.getMediaType()) : MediaType.APPLICATION_JSON;
+			for (ResponseBodyAdvice<Object> ad: config.advices) {
+				returnValue = ad.beforeBodyWrite(returnValue, returnType, mediaType, null, request, response);
 			}
 		}
 
 		ServletServerHttpResponse outputMessage = getAdapter().createOutputMessage(webRequest);
-		outputMessage.getServletResponse().setContentType(MediaType.APPLICATION_JSON_VALUE);
+		outputMessage.getServletResponse().setContentType(format.getMediaType());
+		if (binaryFormat) {
+			outputMessage.getServletResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);  // 同一个地址按Accept返回不同格式
+		}
 		if (returnValue instanceof ResponseObject) {
 			outputMessage.getServletResponse().setStatus(((ResponseObject<?>) returnValue).getHttpCode());
 		}
 
-		Annotation[] annos = returnType.getMethodAnnotations();
-		JsonFilterOption option = JsonFilterExSerialization.fromAnnotations(annos);
-		
-		JsonFilterExSerialization jfex = new JsonFilterExSerialization(returnValue, option);
-		jfex.createJsonGenerator(outputMessage.getBody(), getJsonEncoding(outputMessage.getHeaders().getContentType()));
-		jfex.write();
+		ObjectWriter writer = config.writers.get(format);
+		JsonGenerator generator = writer.getFactory().createGenerator(outputMessage.getBody(),
+				getJsonEncoding(outputMessage.getHeaders().getContentType()));  // 二进制格式忽略字符集
+		writer.writeValue(generator, returnValue);
+		generator.flush();
+	}
+
+	/**
+	 * 获取返回值的处理配置，第一次调用时根据方法的注释生成并缓存
+	 *
+	 * @param returnType 返回类型
+	 * @return {@link HandlerConfig }
+	 * @author Tequila
+	 * @date 2022/12/09 09:40
+	 */
+	private HandlerConfig getConfig(MethodParameter returnType) {
+		HandlerConfig config = configs.get(returnType);
+		if (config != null) return config;
+
+		return configs.computeIfAbsent(returnType, rt -> {
+			ObjectWriter writer = JsonFilterExSerialization.createObjectWriter(rt.getMethodAnnotations(), afterburner);
+			List<ResponseBodyAdvice<Object>> advices = new ArrayList<>();
+			for (ResponseBodyAdvice<Object> ad: getAdapter().getAdvices()) {
+				if (ad.supports(rt, null)) advices.add(ad);
+			}
+			return new HandlerConfig(writer, advices);
+		});
 	}
 	
 	protected JsonEncoding getJsonEncoding(MediaType contentType) {
@@ -110,5 +159,45 @@ public class SpringJsonFilterReturnValueHandle implements SpringMVCReturnValueHa
 
 	public void setAdapter(SpringMVCReturnValueAdapter adapter) {
 		this.adapter = adapter;
+		this.configs.clear();
+	}
+
+	public boolean isAfterburner() {
+		return afterburner;
+	}
+
+	public void setAfterburner(boolean afterburner) {
+		this.afterburner = afterburner;
+		this.configs.clear();
+	}
+
+	public boolean isBinaryFormat() {
+		return binaryFormat;
+	}
+
+	public void setBinaryFormat(boolean binaryFormat) {
+		this.binaryFormat = binaryFormat;
+	}
+
+	/**
+	 * 方法返回值的处理配置，包括不可变的ObjectWriter和适用的ResponseBodyAdvice
+	 *
+	 * @author Tequila
+	 * @create 2022/12/09 09:35
+	 **/
+	private static final class HandlerConfig {
+
+		/** 每种可用数据格式的ObjectWriter，共享同一个ObjectMapper的过滤配置和序列化器缓存 */
+		private final Map<DataFormat, ObjectWriter> writers = new EnumMap<>(DataFormat.class);
+
+		private final List<ResponseBodyAdvice<Object>> advices;
+
+		private HandlerConfig(ObjectWriter writer, List<ResponseBodyAdvice<Object>> advices) {
+			for (DataFormat format : DataFormat.values()) {
+				if (!format.isAvailable()) continue;  // 缺少jackson-dataformat模块，协商时不会选择该格式
+				this.writers.put(format, format.isBinary() ? writer.with(format.getFactory()) : writer);
+			}
+			this.advices = advices;
+		}
 	}
 }
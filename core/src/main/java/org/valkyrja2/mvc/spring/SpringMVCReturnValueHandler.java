@@ -10,6 +10,8 @@ import org.springframework.beans.BeansException;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.method.support.HandlerMethodReturnValueHandler;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 import org.springframework.web.servlet.mvc.method.annotation.RequestResponseBodyMethodProcessor;
@@ -19,6 +21,9 @@ import org.valkyrja2.mvc.ResponseObject;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
 
 /**
  * 自定义SpringMVC返回值处理对象
@@ -63,6 +68,22 @@ public interface SpringMVCReturnValueHandler {
         return false;
     }
 
+    /**
+     * 返回值是否是异步类型（CompletableFuture、DeferredResult等）
+     * 异步类型由spring mvc处理，异步结果返回并重新分派时，返回类型为实际结果的类型
+     *
+     * @param returnType 返回类型
+     * @return boolean
+     * @author Tequila
+     * @date 2022/12/05 11:00
+     */
+    default boolean isAsyncReturnType(MethodParameter returnType) {
+        Class<?> type = returnType.getParameterType();
+        return CompletionStage.class.isAssignableFrom(type) || Future.class.isAssignableFrom(type)
+                || DeferredResult.class.isAssignableFrom(type) || Callable.class.isAssignableFrom(type)
+                || WebAsyncTask.class.isAssignableFrom(type);
+    }
+
     /**
      * 返回对象是否是ResponseObject
      *
@@ -9,6 +9,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
+import org.valkyrja2.component.idempotent.exception.DuplicateRequestException;
 import org.valkyrja2.component.idempotent.exception.IdempotentException;
 import org.valkyrja2.component.redis.RedisFactory;
 import org.valkyrja2.util.ThreadUtils;
@@ -37,4 +38,18 @@ class RtiUTest {
 //        assertTrue(result);
     }
 
+    @Test
+    void testAcquireTwiceInSameThread() throws IdempotentException {
+        try (Idempotent idempotent = RtiU.idempotent("token-same-thread", 0L, 30L, TimeUnit.SECONDS)) {
+            // 同一个线程再次获取不能重入，否则线程池中的线程处理重复请求时会获取成功
+            assertThrows(DuplicateRequestException.class,
+                    () -> RtiU.idempotent("token-same-thread", 0L, 30L, TimeUnit.SECONDS));
+        }
+
+        // 第一次获取释放后可以再次获取，释放是异步的，等待1秒
+        try (Idempotent idempotent = RtiU.idempotent("token-same-thread", 1L, 30L, TimeUnit.SECONDS)) {
+            assertNotNull(idempotent);
+        }
+    }
+
 }
\ No newline at end of file
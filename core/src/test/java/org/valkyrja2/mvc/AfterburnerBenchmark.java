@@ -0,0 +1,133 @@
+/*
+ * PROJECT valkyrja2
+ * core/AfterburnerBenchmark.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.mvc;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.valkyrja2.component.cacher.bean.AbstractCacheData;
+import org.valkyrja2.util.Jackson2Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Afterburner与反射方式在ResponseObject、ApiResponseObject、StandardApiForm、CacheData上的序列化耗时对比<br>
+ * 标记为benchmark，默认构建中被surefire排除，需要时使用 mvn test -Dgroups=benchmark -DexcludedGroups= 手动执行
+ *
+ * @author Tequila
+ * @create 2022/12/09 17:45
+ **/
+@Tag("benchmark")
+class AfterburnerBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(AfterburnerBenchmark.class);
+
+    private static final int WARMUP = 20000;
+
+    private static final int ITERATIONS = 200000;
+
+    @Test
+    void benchmark() throws Exception {
+        assumeTrue(Jackson2Utils.isUseAfterburner(), "jackson-module-afterburner not in classpath");
+
+        ObjectMapper plain = Jackson2Utils.defaultObjectMapperBuilder(false).build();
+        ObjectMapper burned = Jackson2Utils.defaultObjectMapperBuilder(true).build();
+
+        Profile profile = createProfile();
+        StandardApiForm<BlankForm> form = new StandardApiForm<>("benchmark", null, "8Q2M4N5P6Q7R8S9A", "1670563200000",
+                "5e884898da28047151d0e56f8dc6292773603d0d6aabbdd62a11ef721d1542d8");
+        form.setBody(plain.writeValueAsString(profile));
+
+        compare(plain, burned, "ResponseObject", new ResponseObject<>(ResponseCode.SUCCESS, profile),
+                plain.getTypeFactory().constructParametricType(ResponseObject.class, Profile.class));
+        compare(plain, burned, "ApiResponseObject", new ApiResponseObject<>(ResponseCode.SUCCESS, profile),
+                plain.getTypeFactory().constructParametricType(ApiResponseObject.class, Profile.class));
+        compare(plain, burned, "StandardApiForm", form,
+                plain.getTypeFactory().constructParametricType(StandardApiForm.class, BlankForm.class));
+        compare(plain, burned, "CacheData", profile, plain.getTypeFactory().constructType(Profile.class));
+    }
+
+    private static void compare(ObjectMapper plain, ObjectMapper burned, String name, Object value, JavaType type) throws Exception {
+        String json = plain.writeValueAsString(value);
+        // 两种方式的结果必须一致，否则耗时对比没有意义
+        assertEquals(plain.readTree(json), burned.readTree(burned.writerFor(type).writeValueAsString(value)));
+
+        long plainWrite = write(plain.writerFor(type), value);
+        long burnedWrite = write(burned.writerFor(type), value);
+        long plainRead = read(plain.readerFor(type), json);
+        long burnedRead = read(burned.readerFor(type), json);
+        log.info("{} write: reflection {} ns/op, afterburner {} ns/op, speedup {}", name,
+                plainWrite, burnedWrite, String.format("%.2f", (double) plainWrite / burnedWrite));
+        log.info("{} read:  reflection {} ns/op, afterburner {} ns/op, speedup {}", name,
+                plainRead, burnedRead, String.format("%.2f", (double) plainRead / burnedRead));
+    }
+
+    private static long write(ObjectWriter writer, Object value) throws Exception {
+        int size = 0;
+        for (int i = 0; i < WARMUP; i++) size += writer.writeValueAsBytes(value).length;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) size += writer.writeValueAsBytes(value).length;
+        long elapsed = System.nanoTime() - start;
+        log.debug("write {} bytes", size);
+        return elapsed / ITERATIONS;
+    }
+
+    private static long read(ObjectReader reader, String json) throws Exception {
+        int count = 0;
+        for (int i = 0; i < WARMUP; i++) if (reader.readValue(json) != null) count++;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) if (reader.readValue(json) != null) count++;
+        long elapsed = System.nanoTime() - start;
+        assertEquals(WARMUP + ITERATIONS, count);
+        return elapsed / ITERATIONS;
+    }
+
+    private static Profile createProfile() {
+        Profile profile = new Profile();
+        profile.setId("01GKQ8Z6Y3A7R2M4N5P6Q7R8S9");
+        profile.setName("valkyrja");
+        profile.setLevel(3);
+        profile.setBalance(1024.5);
+        profile.setEnabled(true);
+        profile.setUpdateTime(1670563200000L);
+        for (int i = 0; i < 10; i++) {
+            profile.getTags().add("TAG-" + i);
+        }
+        return profile;
+    }
+
+    public static class Profile extends AbstractCacheData {
+        private String name;
+        private int level;
+        private double balance;
+        private boolean enabled;
+        private long updateTime;
+        private List<String> tags = new ArrayList<>();
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public int getLevel() { return level; }
+        public void setLevel(int level) { this.level = level; }
+        public double getBalance() { return balance; }
+        public void setBalance(double balance) { this.balance = balance; }
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getUpdateTime() { return updateTime; }
+        public void setUpdateTime(long updateTime) { this.updateTime = updateTime; }
+        public List<String> getTags() { return tags; }
+        public void setTags(List<String> tags) { this.tags = tags; }
+    }
+}
@@ -0,0 +1,79 @@
+package org.valkyrja2.mvc;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingHttpResponseWrapperTest {
+
+    @Test
+    void testTeePassThrough() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        CachingHttpResponseWrapper wrapper = new CachingHttpResponseWrapper(target, true, 8);
+
+        wrapper.getOutputStream().write("hello".getBytes(StandardCharsets.UTF_8));
+        assertEquals("hello", target.getContentAsString());  // 不需要flush，直接写入原始的response
+        assertEquals("hello", new String(wrapper.getBody(), StandardCharsets.UTF_8));
+        assertFalse(wrapper.isTruncated());
+    }
+
+    @Test
+    void testTeeTruncated() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        CachingHttpResponseWrapper wrapper = new CachingHttpResponseWrapper(target, true, 8);
+
+        ServletOutputStream out = wrapper.getOutputStream();
+        out.write("0123456".getBytes(StandardCharsets.UTF_8));
+        out.write('7');
+        assertFalse(wrapper.isTruncated());
+        out.write('8');
+        out.write("9abcdef".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("0123456789abcdef", target.getContentAsString());
+        assertEquals("01234567", new String(wrapper.getBody(), StandardCharsets.UTF_8));
+        assertTrue(wrapper.isTruncated());
+    }
+
+    @Test
+    void testWriterAndStreamShared() throws IOException {
+        MockHttpServletResponse target = new MockHttpServletResponse();
+        CachingHttpResponseWrapper wrapper = new CachingHttpResponseWrapper(target, true, 64);
+
+        PrintWriter writer = wrapper.getWriter();
+        assertSame(writer, wrapper.getWriter());
+        writer.print("ab");
+        writer.flush();
+        wrapper.getOutputStream().write("cd".getBytes(StandardCharsets.UTF_8));
+        assertEquals("abcd", target.getContentAsString());
+
+        writer.print("ef");
+        assertEquals("abcd", target.getContentAsString());  // 还在writer的缓冲区中
+        wrapper.flushBuffer();
+        assertEquals("abcdef", target.getContentAsString());
+        assertEquals("abcdef", new String(wrapper.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testFilterFlushesWriter() throws Exception {
+        for (String tee : new String[] { "true", "false" }) {
+            MockFilterConfig config = new MockFilterConfig();
+            config.addInitParameter(CachingHttpBodyFilter.TEE_RESPONSE, tee);
+            CachingHttpBodyFilter filter = new CachingHttpBodyFilter();
+            filter.init(config);
+
+            MockHttpServletResponse target = new MockHttpServletResponse();
+            filter.doFilter(new MockHttpServletRequest("GET", "/test"), target,
+                    (req, res) -> res.getWriter().print("hello"));  // 没有flush
+
+            assertEquals("hello", target.getContentAsString(), "teeResponse=" + tee);
+        }
+    }
+}
@@ -11,11 +11,19 @@ import com.fasterxml.jackson.databind.ser.FilterProvider;
 import com.fasterxml.jackson.databind.ser.PropertyFilter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
 
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * JsonFilterEx类过滤器Provider
+ * JsonFilterEx类过滤器Provider<br>
+ * 按对象的实际类型查找过滤器：先查找类本身，再按继承层次由近到远查找父类和接口（同一层中父类优先，接口按声明顺序），
+ * 使用第一个找到的过滤器。每个实际类型只查找一次，结果缓存，序列化时只需要一次map查询。
  *
  * @author Tequila
  * @create 2022/06/25 00:13
@@ -37,6 +45,12 @@ public class BeanWithClassFilterProvider extends FilterProvider	implements java.
 	 */
 	protected boolean cfgFailOnUnknownId = true;
 
+	/** 没有过滤器的类型在缓存中的标记 */
+	private static final PropertyFilter NO_FILTER = new BeanPropertyWithClassFilter() { };
+
+	/** 实际类型对应的过滤器 */
+	private transient volatile Map<Class<?>, PropertyFilter> resolvedFilters;
+
 	public BeanWithClassFilterProvider() {
 		filtersByType = new HashMap<>();
 	}
@@ -53,6 +67,7 @@ public class BeanWithClassFilterProvider extends FilterProvider	implements java.
 	 */
 	public BeanWithClassFilterProvider addFilter(Class<?> klass, PropertyFilter filter) {
 		filtersByType.put(klass, filter);
+		resolvedFilters = null;  // 过滤器变化后重新查找
 		return this;
 	}
 
@@ -61,13 +76,7 @@ public class BeanWithClassFilterProvider extends FilterProvider	implements java.
 	 */
 	@Override
 	public PropertyFilter findPropertyFilter(Object filterId, Object valueToFilter) {
-		PropertyFilter f = null;
-		for (Map.Entry<Class<?>, PropertyFilter> entry : filtersByType.entrySet()) {
-			if (entry.getKey().isAssignableFrom(valueToFilter.getClass())) {
-				f = entry.getValue();
-				break;
-			}
-		}
+		PropertyFilter f = findFilterByType(valueToFilter.getClass());
 
 		if (f == null) {
 			f = defaultFilter;
@@ -80,6 +89,56 @@ public class BeanWithClassFilterProvider extends FilterProvider	implements java.
 		return f;
 	}
 
+	/**
+	 * 查找类型对应的过滤器，结果缓存
+	 *
+	 * @param klass 对象的实际类型
+	 * @return {@link PropertyFilter } 没有找到时返回null
+	 * @author Tequila
+	 * @date 2022/12/09 11:00
+	 */
+	public PropertyFilter findFilterByType(Class<?> klass) {
+		Map<Class<?>, PropertyFilter> resolved = this.resolvedFilters;
+		if (resolved == null) {
+			resolved = new ConcurrentHashMap<>();
+			this.resolvedFilters = resolved;
+		}
+
+		PropertyFilter f = resolved.get(klass);
+		if (f == null) {
+			f = resolveFilter(klass);
+			resolved.put(klass, f == null ? NO_FILTER : f);
+		}
+		return f == NO_FILTER ? null : f;
+	}
+
+	/**
+	 * 按继承层次广度优先查找过滤器，离实际类型最近的过滤器优先
+	 *
+	 * @param klass 对象的实际类型
+	 * @return {@link PropertyFilter } 没有找到时返回null
+	 * @author Tequila
+	 * @date 2022/12/09 11:05
+	 */
+	private PropertyFilter resolveFilter(Class<?> klass) {
+		if (filtersByType.isEmpty()) return null;
+
+		Deque<Class<?>> queue = new ArrayDeque<>();
+		Set<Class<?>> visited = new HashSet<>();
+		queue.add(klass);
+		while (!queue.isEmpty()) {
+			Class<?> c = queue.poll();
+			if (!visited.add(c)) continue;
+
+			PropertyFilter f = filtersByType.get(c);
+			if (f != null) return f;
+
+			if (c.getSuperclass() != null) queue.add(c.getSuperclass());
+			Collections.addAll(queue, c.getInterfaces());
+		}
+		return null;
+	}
+
 	/**
 	 * 新版本开始不支持BeanPropertyFilter
 	 *
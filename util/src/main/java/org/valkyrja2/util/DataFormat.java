@@ -0,0 +1,246 @@
+/*
+ * PROJECT valkyrja2
+ * util/DataFormat.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.valkyrja2.util.exception.JsonRuntimeException;
+
+/**
+ * 数据编码格式<br>
+ * 对外接口使用json；内部服务之间的调用可以通过Accept/Content-Type选择smile或者cbor二进制编码，
+ * 减少序列化的CPU开销和传输的数据量。所有格式的ObjectMapper都使用{@link Jackson2Utils}的默认配置，序列化行为一致。<br>
+ * jackson-dataformat-smile和jackson-dataformat-cbor是可选依赖，不存在时对应的格式不可用（{@link #isAvailable()}），
+ * 协商时跳过，使用json。
+ *
+ * @author Tequila
+ * @create 2022/12/09 14:00
+ **/
+public enum DataFormat {
+
+	JSON("application/json", null) {
+		@Override
+		protected ObjectMapper createObjectMapper() {
+			return Jackson2Utils.getObjectMapper();
+		}
+	},
+
+	SMILE("application/x-jackson-smile", "com.fasterxml.jackson.dataformat.smile.databind.SmileMapper") {
+		@Override
+		protected ObjectMapper createObjectMapper() {
+			return BinaryMappers.smile();
+		}
+	},
+
+	CBOR("application/cbor", "com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper") {
+		@Override
+		protected ObjectMapper createObjectMapper() {
+			return BinaryMappers.cbor();
+		}
+	};
+
+	/** 媒体类型 */
+	private final String mediaType;
+
+	/** 依赖的类是否存在 */
+	private final boolean available;
+
+	/** 共享的ObjectMapper，第一次使用时创建 */
+	private volatile ObjectMapper objectMapper;
+
+	DataFormat(String mediaType, String mapperClass) {
+		this.mediaType = mediaType;
+		this.available = mapperClass == null || isPresent(mapperClass);
+	}
+
+	/**
+	 * 创建该格式的ObjectMapper
+	 *
+	 * @return {@link ObjectMapper }
+	 * @author Tequila
+	 * @date 2022/12/09 14:02
+	 */
+	protected abstract ObjectMapper createObjectMapper();
+
+	/**
+	 * 获取该格式共享的ObjectMapper，不要修改它的配置
+	 *
+	 * @return {@link ObjectMapper }
+	 * @throws JsonRuntimeException 该格式不可用
+	 * @author Tequila
+	 * @date 2022/12/09 14:03
+	 */
+	public ObjectMapper getObjectMapper() {
+		ObjectMapper mapper = this.objectMapper;
+		if (mapper == null) {
+			if (!available) {
+				throw new JsonRuntimeException(String.format("Data format [%s] is not available, add the jackson-dataformat module to classpath.", mediaType));
+			}
+			synchronized (this) {
+				mapper = this.objectMapper;
+				if (mapper == null) {
+					mapper = createObjectMapper();
+					this.objectMapper = mapper;
+				}
+			}
+		}
+		return mapper;
+	}
+
+	/**
+	 * 获取该格式的JsonFactory，可以通过ObjectWriter.with(JsonFactory)将已有的ObjectWriter切换为该格式
+	 *
+	 * @return {@link JsonFactory }
+	 * @author Tequila
+	 * @date 2022/12/09 14:04
+	 */
+	public JsonFactory getFactory() {
+		return getObjectMapper().getFactory();
+	}
+
+	public String getMediaType() {
+		return mediaType;
+	}
+
+	/**
+	 * 依赖的jackson-dataformat模块是否存在
+	 *
+	 * @return boolean
+	 * @author Tequila
+	 * @date 2022/12/09 17:00
+	 */
+	public boolean isAvailable() {
+		return available;
+	}
+
+	/**
+	 * 该格式可用时返回自身，否则返回json
+	 *
+	 * @return {@link DataFormat }
+	 * @author Tequila
+	 * @date 2022/12/09 17:01
+	 */
+	public DataFormat availableOrJson() {
+		return available ? this : JSON;
+	}
+
+	/**
+	 * 是否是二进制格式
+	 *
+	 * @return boolean
+	 * @author Tequila
+	 * @date 2022/12/09 14:05
+	 */
+	public boolean isBinary() {
+		return this != JSON;
+	}
+
+	/**
+	 * 根据媒体类型获取数据格式，忽略charset等参数
+	 *
+	 * @param mediaType 媒体类型，例如application/cbor
+	 * @return {@link DataFormat } 不支持的媒体类型返回null
+	 * @author Tequila
+	 * @date 2022/12/09 14:06
+	 */
+	public static DataFormat fromMediaType(String mediaType) {
+		if (mediaType == null) return null;
+
+		int pos = mediaType.indexOf(';');
+		String type = (pos >= 0 ? mediaType.substring(0, pos) : mediaType).trim();
+		for (DataFormat format : values()) {
+			if (format.mediaType.equalsIgnoreCase(type)) return format;
+		}
+		return null;
+	}
+
+	/**
+	 * 根据Accept头选择返回的数据格式<br>
+	 * 只有明确要求smile或者cbor时才使用二进制格式，多个格式时按q值和顺序选择第一个支持的格式；
+	 * 没有Accept头、通配符、不支持或者不可用的类型都返回json，对外部客户端保持不变。
+	 *
+	 * @param accept Accept头
+	 * @return {@link DataFormat }
+	 * @author Tequila
+	 * @date 2022/12/09 14:10
+	 */
+	public static DataFormat negotiate(String accept) {
+		if (accept == null || accept.isEmpty()) return JSON;
+
+		DataFormat result = JSON;
+		double resultQuality = -1;
+		for (String item : accept.split(",")) {
+			DataFormat format = fromMediaType(item);
+			if (format == null || !format.available) continue;
+
+			double quality = quality(item);
+			if (quality > resultQuality) {
+				result = format;
+				resultQuality = quality;
+			}
+		}
+		return resultQuality > 0 ? result : JSON;
+	}
+
+	/**
+	 * 解析媒体类型的q值
+	 *
+	 * @param mediaType 媒体类型
+	 * @return double 没有q值时返回1
+	 * @author Tequila
+	 * @date 2022/12/09 14:12
+	 */
+	private static double quality(String mediaType) {
+		for (String param : mediaType.split(";")) {
+			param = param.trim();
+			if (param.startsWith("q=")) {
+				try {
+					return Double.parseDouble(param.substring(2));
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	/**
+	 * 类是否存在
+	 *
+	 * @param className 类名
+	 * @return boolean
+	 * @author Tequila
+	 * @date 2022/12/09 17:02
+	 */
+	private static boolean isPresent(String className) {
+		try {
+			Class.forName(className, false, DataFormat.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * 创建二进制格式的ObjectMapper<br>
+	 * 单独的类，只有在格式可用时才会加载，避免依赖不存在时DataFormat初始化失败
+	 */
+	private static class BinaryMappers {
+
+		private BinaryMappers() { }
+
+		static ObjectMapper smile() {
+			return Jackson2Utils.configureMapperBuilder(SmileMapper.builder(), Jackson2Utils.isUseAfterburner()).build();
+		}
+
+		static ObjectMapper cbor() {
+			return Jackson2Utils.configureMapperBuilder(CBORMapper.builder(), Jackson2Utils.isUseAfterburner()).build();
+		}
+	}
+}
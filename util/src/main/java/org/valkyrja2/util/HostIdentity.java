@@ -0,0 +1,124 @@
+/*
+ * PROJECT valkyrja2
+ * util/HostIdentity.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地服务器标识<br>
+ * 计算机名和IP地址只在第一次使用时解析，之后由后台线程定时刷新，
+ * 避免每次请求都调用{@link InetAddress#getLocalHost()}（可能触发DNS查询）。
+ *
+ * @author Tequila
+ * @create 2022/12/07 16:00
+ **/
+public class HostIdentity {
+
+    private static final Logger log = LoggerFactory.getLogger(HostIdentity.class);
+
+    private static volatile HostIdentity _instance;
+    private HostIdentity() {
+        refresh();
+    }
+    public static HostIdentity getInstance() {
+        if (_instance == null) {
+            synchronized (HostIdentity.class) {
+                if (_instance == null) {
+                    _instance = new HostIdentity();
+                    _instance.startRefresh();
+                }
+            }
+        }
+        return _instance;
+    }
+
+    /** 无法获取计算机名 */
+    public static final String UNKNOWN_HOST = "UNKNOWN_HOST";
+
+    /** 无法获取IP地址 */
+    public static final String UNKNOWN_IPADDRESS = "UNKNOWN_IPADDRESS";
+
+    /** 刷新线程名 */
+    private static final String THREAD_NAME = "HostIdentityRefresh";
+
+    /** 默认刷新间隔（秒） */
+    private static final long DEFAULT_REFRESH_INTERVAL = 5L * 60;
+
+    /** 计算机名 */
+    private volatile String hostName;
+
+    /** IP地址 */
+    private volatile String hostIP;
+
+    /**
+     * 获取计算机名
+     *
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/12/07 16:05
+     */
+    public String getHostName() {
+        return hostName;
+    }
+
+    /**
+     * 获取IP地址
+     *
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/12/07 16:05
+     */
+    public String getHostIP() {
+        return hostIP;
+    }
+
+    /**
+     * 重新解析计算机名和IP地址，解析失败时保留上一次的结果
+     *
+     * @author Tequila
+     * @date 2022/12/07 16:10
+     */
+    public void refresh() {
+        try {
+            InetAddress addr = InetAddress.getLocalHost();
+            this.hostName = addr.getHostName();
+            this.hostIP = addr.getHostAddress();
+        } catch (UnknownHostException e) {
+            log.warn("Can not get host identity.", e);
+            if (this.hostName == null) this.hostName = UNKNOWN_HOST;
+            if (this.hostIP == null) this.hostIP = UNKNOWN_IPADDRESS;
+        }
+    }
+
+    /**
+     * 启动后台刷新线程
+     *
+     * @author Tequila
+     * @date 2022/12/07 16:12
+     */
+    private void startRefresh() {
+        NamedThreadFactory threadFactory = new NamedThreadFactory(THREAD_NAME);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = threadFactory.newThread(r);
+            t.setDaemon(true);  // 不阻止进程退出
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, DEFAULT_REFRESH_INTERVAL, DEFAULT_REFRESH_INTERVAL, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s<%s>", hostName, hostIP);
+    }
+}
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.apache.http.Consts;
 import org.apache.http.entity.ContentType;
 
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.Map;
@@ -98,6 +99,33 @@ public class HttpResult {
 		return new String(this.content, charset);
 	}
 
+	/**
+	 * 根据Content-Type获取返回内容的数据格式
+	 *
+	 * @return {@link DataFormat } 不是json/smile/cbor时返回null
+	 * @author Tequila
+	 * @date 2022/12/09 14:25
+	 */
+	@JsonIgnore
+	public DataFormat getDataFormat() {
+		return contentType != null ? DataFormat.fromMediaType(contentType.getMimeType()) : null;
+	}
+
+	/**
+	 * 按返回的数据格式解码内容，无法识别的格式按json解码
+	 *
+	 * @param klass 类型
+	 * @return {@link T }
+	 * @throws IOException 解码失败时抛出
+	 * @author Tequila
+	 * @date 2022/12/09 14:26
+	 */
+	public <T> T readContent(Class<T> klass) throws IOException {
+		DataFormat format = getDataFormat();
+		if (format == null) format = DataFormat.JSON;
+		return format.getObjectMapper().readValue(this.content, klass);
+	}
+
 	public int getHttpCode() {
 		return httpCode;
 	}
@@ -20,6 +20,7 @@ import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.InputStreamEntity;
 import org.apache.http.entity.StringEntity;
@@ -442,6 +443,35 @@ public class HttpUtils {
 		}
 	}
 
+	/**
+	 * http post 数据对象操作，使用指定的数据格式编码请求，并通过Accept要求服务端使用相同的格式返回<br>
+	 * 内部服务之间的调用可以使用{@link DataFormat#SMILE}或者{@link DataFormat#CBOR}减少编码开销，
+	 * 返回结果可以通过{@link HttpResult#readContent(Class)}按返回的Content-Type解码。
+	 * 指定的格式不可用（缺少对应的jackson-dataformat模块）时使用json。
+	 *
+	 * @param url    url
+	 * @param header header
+	 * @param data   数据对象
+	 * @param format 数据格式
+	 * @return {@link HttpResult }
+	 * @throws IOException IO异常
+	 * @author Tequila
+	 * @date 2022/12/09 14:20
+	 */
+	public static HttpResult doPostDataReturnHttpResult(final String url, final Map<String, String> header, final Object data,
+														DataFormat format) throws IOException {
+		Objects.requireNonNull(format, "format must not be null");
+		format = format.availableOrJson();
+
+		Map<String, String> dataHeader = new HashMap<>();
+		if (header != null) dataHeader.putAll(header);
+		dataHeader.putIfAbsent(HTTP.CONTENT_TYPE, format.getMediaType());
+		dataHeader.putIfAbsent(HttpHeaders.ACCEPT, format.getMediaType());
+
+		byte[] content = format.getObjectMapper().writeValueAsBytes(data);
+		return doPostReturnHttpResult(url, dataHeader, new ByteArrayEntity(content, ContentType.create(format.getMediaType())));
+	}
+
 	/**
 	 * http post Multipart 操作
 	 *
@@ -0,0 +1,26 @@
+/*
+ * PROJECT valkyrja2
+ * util/IdGenerator.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+/**
+ * Id生成器
+ *
+ * @author Tequila
+ * @create 2022/12/07 16:20
+ **/
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * 生成一个新的Id
+     *
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/12/07 16:20
+     */
+    String nextId();
+}
@@ -8,8 +8,12 @@ package org.valkyrja2.util;
 
 import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper.Builder;
 import com.fasterxml.jackson.databind.ser.FilterProvider;
@@ -20,12 +24,20 @@ import org.slf4j.LoggerFactory;
 import org.valkyrja2.util.exception.JsonRuntimeException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * jackson2 json 工具包<br>
- *
+ * 所有方法共享预先配置好的ObjectMapper，并按类型、视图、MixIn和过滤字段缓存ObjectReader/ObjectWriter，
+ * 避免每次调用都重新创建序列化器和反序列化器。ObjectReader/ObjectWriter是不可变的，可以在多个线程中共享。<br>
+ * classpath中存在jackson-module-afterburner时，默认注册Afterburner模块，使用字节码生成的属性访问器代替反射；
+ * 可以通过系统属性-Dvalkyrja2.jackson.afterburner=false关闭（需要在Jackson2Utils初始化之前设置）。
  *
  * @author Tequila
  * @create 2022/05/25 08:18
@@ -42,6 +54,45 @@ public class Jackson2Utils {
 
     public static final String ERR_OBJ_2_JSON = "Jackson2Utils.obj2json(...) raise error.";
 
+    /** 是否使用Afterburner的系统属性 */
+    public static final String AFTERBURNER_PROPERTY = "valkyrja2.jackson.afterburner";
+
+    /** Afterburner模块类名，可选依赖，通过反射加载 */
+    private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+    /** Afterburner模块类，不存在时为null */
+    private static final Class<? extends Module> AFTERBURNER_CLASS = findAfterburnerClass();
+
+    /** 默认是否使用Afterburner */
+    private static final boolean USE_AFTERBURNER = AFTERBURNER_CLASS != null
+            && Boolean.parseBoolean(System.getProperty(AFTERBURNER_PROPERTY, "true"));
+
+    /** 每个缓存的最大数量，超过时清空重新缓存 */
+    private static final int MAX_CACHE_SIZE = 512;
+
+    /** 默认配置的ObjectMapper */
+    private static final ObjectMapper DEFAULT_MAPPER = defaultObjectMapperBuilder().build();
+
+    /** 使用View方式输出的ObjectMapper */
+    private static final ObjectMapper VIEW_MAPPER = defaultObjectMapperBuilder()
+            .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
+            .build();
+
+    /** 使用FilterProvider方式输出的ObjectMapper */
+    private static final ObjectMapper FILTER_MAPPER = registerAfterburner(new ObjectMapper(), USE_AFTERBURNER);
+
+    /** 按类型缓存的ObjectReader */
+    private static final Map<JavaType, ObjectReader> READERS = new ConcurrentHashMap<>();
+
+    /** 按视图缓存的ObjectWriter */
+    private static final Map<Class<?>, ObjectWriter> VIEW_WRITERS = new ConcurrentHashMap<>();
+
+    /** 按MixIn缓存的ObjectMapper，MixIn只能配置在ObjectMapper上 */
+    private static final Map<MixInKey, ObjectMapper> MIXIN_MAPPERS = new ConcurrentHashMap<>();
+
+    /** 按MixIn和过滤字段缓存的ObjectWriter */
+    private static final Map<FieldsKey, ObjectWriter> FIELDS_WRITERS = new ConcurrentHashMap<>();
+
     /**
      * 构建默认json对象映射器
      *
@@ -50,9 +101,97 @@ public class Jackson2Utils {
      * @date 2022/05/25 11:00
      */
     public static JsonMapper.Builder defaultObjectMapperBuilder() {
-        return JsonMapper.builder()
-                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+        return defaultObjectMapperBuilder(USE_AFTERBURNER);
+    }
+
+    /**
+     * 构建默认json对象映射器
+     *
+     * @param afterburner 是否使用Afterburner，classpath中不存在Afterburner时忽略
+     * @return {@link Builder } 带有默认配置信息的JsonMapper.Builder对象
+     * @author Tequila
+     * @date 2022/12/09 13:30
+     */
+    public static JsonMapper.Builder defaultObjectMapperBuilder(boolean afterburner) {
+        return configureMapperBuilder(JsonMapper.builder(), afterburner);
+    }
+
+    /**
+     * 对任意数据格式（json/smile/cbor等）的MapperBuilder应用默认配置，保证不同数据格式的序列化行为一致
+     *
+     * @param builder     MapperBuilder
+     * @param afterburner 是否使用Afterburner，classpath中不存在Afterburner时忽略
+     * @return {@link B } 传入的builder
+     * @author Tequila
+     * @date 2022/12/09 14:10
+     */
+    public static <M extends ObjectMapper, B extends MapperBuilder<M, B>> B configureMapperBuilder(B builder, boolean afterburner) {
+        builder.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
                 .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        Module module = afterburner ? createAfterburnerModule() : null;
+        if (module != null) builder.addModule(module);
+        return builder;
+    }
+
+    /**
+     * 在ObjectMapper上注册Afterburner模块，需要在ObjectMapper第一次使用之前调用
+     *
+     * @param mapper      ObjectMapper
+     * @param afterburner 是否使用Afterburner，classpath中不存在Afterburner时忽略
+     * @return {@link ObjectMapper } 传入的mapper
+     * @author Tequila
+     * @date 2022/12/09 13:35
+     */
+    public static ObjectMapper registerAfterburner(ObjectMapper mapper, boolean afterburner) {
+        Module module = afterburner ? createAfterburnerModule() : null;
+        if (module != null) mapper.registerModule(module);
+        return mapper;
+    }
+
+    /**
+     * 默认是否使用Afterburner
+     *
+     * @return boolean classpath中存在Afterburner，并且没有通过系统属性关闭时返回true
+     * @author Tequila
+     * @date 2022/12/09 13:36
+     */
+    public static boolean isUseAfterburner() {
+        return USE_AFTERBURNER;
+    }
+
+    /**
+     * 加载Afterburner模块类
+     *
+     * @return {@link Class } 不存在时返回null
+     * @author Tequila
+     * @date 2022/12/09 13:38
+     */
+    @SuppressWarnings("unchecked")
+    private static Class<? extends Module> findAfterburnerClass() {
+        try {
+            return (Class<? extends Module>) Class.forName(AFTERBURNER_MODULE, true, Jackson2Utils.class.getClassLoader());
+        } catch (ClassNotFoundException | LinkageError e) {
+            log.debug("Jackson afterburner module not found, use reflection property access.");
+            return null;
+        }
+    }
+
+    /**
+     * 创建Afterburner模块
+     *
+     * @return {@link Module } 不存在或者创建失败时返回null
+     * @author Tequila
+     * @date 2022/12/09 13:40
+     */
+    private static Module createAfterburnerModule() {
+        if (AFTERBURNER_CLASS == null) return null;
+
+        try {
+            return AFTERBURNER_CLASS.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            log.warn("Create jackson afterburner module error.", e);
+            return null;
+        }
     }
 
     /**
@@ -98,12 +237,11 @@ public class Jackson2Utils {
      * @date 2022/05/05 14:06
      */
     public static String obj2json(Object obj, boolean skipError, boolean prettyMode) {
-        ObjectMapper mapper = defaultObjectMapperBuilder().build();
         try {
             if (prettyMode) {
-                return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(obj);
+                return DEFAULT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(obj);
             } else {
-                return mapper.writeValueAsString(obj);
+                return DEFAULT_MAPPER.writeValueAsString(obj);
             }
         } catch (JsonProcessingException e) {
             log.warn("Can not execute obj2json({})", obj.getClass(), e);
@@ -127,14 +265,8 @@ public class Jackson2Utils {
      * @date 2022/05/05 12:02
      */
     public static String obj2json(Object obj, Class<?> viewClass) throws JacksonException {
-        ObjectMapper mapper = defaultObjectMapperBuilder()
-                .disable(MapperFeature.DEFAULT_VIEW_INCLUSION)
-                .build();
-        if (usePrettyMode) {
-            return mapper.writerWithView(viewClass).withDefaultPrettyPrinter().writeValueAsString(obj);
-        } else {
-            return mapper.writerWithView(viewClass).writeValueAsString(obj);
-        }
+        ObjectWriter writer = cached(VIEW_WRITERS, viewClass, VIEW_MAPPER::writerWithView);
+        return write(writer, obj);
     }
 
 
@@ -164,14 +296,7 @@ public class Jackson2Utils {
      * @date 2022/05/05 12:01
      */
     public static String obj2json(Object obj, FilterProvider filterProvider, Class<?> mixInClass) throws JacksonException {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.setFilterProvider(filterProvider);
-        if (mixInClass != null) mapper.addMixIn(obj.getClass(), mixInClass);
-        if (usePrettyMode) {
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(obj);
-        } else {
-            return mapper.writeValueAsString(obj);
-        }
+        return write(mixInMapper(obj.getClass(), mixInClass).writer(filterProvider), obj);
     }
 
 
@@ -220,11 +345,15 @@ public class Jackson2Utils {
      */
     public static String obj2jsonExcludeFields(Object obj, Class<?> mixInClass, String filterName, String...excludeFields) throws JacksonException {
         String locFilterName = StringUtils.isBlank(filterName) ? DEFAULT_JSON_FILTER : filterName;
-        SimpleFilterProvider filterProvider = new SimpleFilterProvider();
-        filterProvider.addFilter(locFilterName,
-                SimpleBeanPropertyFilter.serializeAllExcept(excludeFields));
-
-        return obj2json(obj, filterProvider, mixInClass);
+        FieldsKey key = new FieldsKey(obj.getClass(), mixInClass, locFilterName, false, excludeFields);
+        ObjectWriter writer = cached(FIELDS_WRITERS, key, k -> {
+            SimpleFilterProvider filterProvider = new SimpleFilterProvider();
+            filterProvider.addFilter(locFilterName,
+                    SimpleBeanPropertyFilter.serializeAllExcept(excludeFields));
+            return mixInMapper(obj.getClass(), mixInClass).writer(filterProvider);
+        });
+
+        return write(writer, obj);
     }
 
 
@@ -273,11 +402,15 @@ public class Jackson2Utils {
      */
     public static String obj2jsonIncludeFields(Object obj, Class<?> mixInClass, String filterName, String...includeFields) throws JacksonException {
         String locFilterName = StringUtils.isBlank(filterName) ? DEFAULT_JSON_FILTER : filterName;
-        SimpleFilterProvider filterProvider = new SimpleFilterProvider();
-        filterProvider.addFilter(locFilterName,
-                SimpleBeanPropertyFilter.filterOutAllExcept(includeFields));
-
-        return obj2json(obj, filterProvider, mixInClass);
+        FieldsKey key = new FieldsKey(obj.getClass(), mixInClass, locFilterName, true, includeFields);
+        ObjectWriter writer = cached(FIELDS_WRITERS, key, k -> {
+            SimpleFilterProvider filterProvider = new SimpleFilterProvider();
+            filterProvider.addFilter(locFilterName,
+                    SimpleBeanPropertyFilter.filterOutAllExcept(includeFields));
+            return mixInMapper(obj.getClass(), mixInClass).writer(filterProvider);
+        });
+
+        return write(writer, obj);
     }
 
 
@@ -292,9 +425,7 @@ public class Jackson2Utils {
      * @date 2022/06/24 23:42
      */
     public static <T> T json2obj(String json, Class<T> klass) throws IOException  {
-        ObjectMapper mapper = defaultObjectMapperBuilder().build();
-
-        return mapper.readValue(json, klass);
+        return reader(DEFAULT_MAPPER.constructType(klass)).readValue(json);
     }
 
 
@@ -310,10 +441,8 @@ public class Jackson2Utils {
      * @date 2022/06/24 23:52
      */
     public static <T, E> T json2obj(String json, Class<? extends Collection<E>> collectionClass, Class<E> elementClass) throws IOException {
-        ObjectMapper mapper = defaultObjectMapperBuilder().build();
-
-        JavaType klass = mapper.getTypeFactory().constructParametricType(collectionClass, elementClass);
-        return mapper.readValue(json, klass);
+        JavaType klass = DEFAULT_MAPPER.getTypeFactory().constructParametricType(collectionClass, elementClass);
+        return reader(klass).readValue(json);
     }
 
 
@@ -330,10 +459,218 @@ public class Jackson2Utils {
      * @date 2022/06/24 23:55
      */
     public static <T extends Map<K, V>, K, V> T json2obj(String json, Class<T> mapClass, Class<K> keyClass, Class<V> valueClass) throws IOException {
-        ObjectMapper mapper = defaultObjectMapperBuilder().build();
+        JavaType klass = DEFAULT_MAPPER.getTypeFactory().constructMapType(mapClass, keyClass, valueClass);
+        return reader(klass).readValue(json);
+    }
+
+    /**
+     * 将json数据转换成klass指定的object，不需要先转换成字符串
+     *
+     * @param json  json数据（UTF-8/UTF-16/UTF-32编码，自动识别）
+     * @param klass 指定的转换的类
+     * @return {@link T } 转换后的对象实例
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:10
+     */
+    public static <T> T json2obj(byte[] json, Class<T> klass) throws IOException {
+        return reader(DEFAULT_MAPPER.constructType(klass)).readValue(json);
+    }
+
+    /**
+     * 从输入流中读取json并转换成klass指定的object，读取完成后关闭输入流
+     *
+     * @param in    json输入流
+     * @param klass 指定的转换的类
+     * @return {@link T } 转换后的对象实例
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:12
+     */
+    public static <T> T json2obj(InputStream in, Class<T> klass) throws IOException {
+        return reader(DEFAULT_MAPPER.constructType(klass)).readValue(in);
+    }
+
+    /**
+     * 从Reader中读取json并转换成klass指定的object，读取完成后关闭Reader
+     *
+     * @param reader json Reader
+     * @param klass  指定的转换的类
+     * @return {@link T } 转换后的对象实例
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:13
+     */
+    public static <T> T json2obj(Reader reader, Class<T> klass) throws IOException {
+        return reader(DEFAULT_MAPPER.constructType(klass)).readValue(reader);
+    }
+
+    /**
+     * 增量读取输入流中顶层的json数组，每次只解析一个元素
+     *
+     * @param in    json输入流
+     * @param klass 数组元素的类
+     * @return {@link JsonArrayIterator }<{@link T }> 顶层不是数组时返回空的迭代器
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:15
+     */
+    public static <T> JsonArrayIterator<T> json2iterator(InputStream in, Class<T> klass) throws IOException {
+        return json2iterator(DEFAULT_MAPPER.createParser(in), null, klass);
+    }
+
+    /**
+     * 增量读取输入流中顶层json对象的数组字段，例如{"code": 0, "data": [...]}中的data，每次只解析一个元素
+     *
+     * @param in        json输入流
+     * @param fieldName 数组字段名
+     * @param klass     数组元素的类
+     * @return {@link JsonArrayIterator }<{@link T }> 字段不存在或者不是数组时返回空的迭代器
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:16
+     */
+    public static <T> JsonArrayIterator<T> json2iterator(InputStream in, String fieldName, Class<T> klass) throws IOException {
+        return json2iterator(DEFAULT_MAPPER.createParser(in), fieldName, klass);
+    }
+
+    /**
+     * 增量读取Reader中顶层的json数组，每次只解析一个元素
+     *
+     * @param reader json Reader
+     * @param klass  数组元素的类
+     * @return {@link JsonArrayIterator }<{@link T }> 顶层不是数组时返回空的迭代器
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:17
+     */
+    public static <T> JsonArrayIterator<T> json2iterator(Reader reader, Class<T> klass) throws IOException {
+        return json2iterator(DEFAULT_MAPPER.createParser(reader), null, klass);
+    }
+
+    /**
+     * 增量读取Reader中顶层json对象的数组字段，每次只解析一个元素
+     *
+     * @param reader    json Reader
+     * @param fieldName 数组字段名
+     * @param klass     数组元素的类
+     * @return {@link JsonArrayIterator }<{@link T }> 字段不存在或者不是数组时返回空的迭代器
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:18
+     */
+    public static <T> JsonArrayIterator<T> json2iterator(Reader reader, String fieldName, Class<T> klass) throws IOException {
+        return json2iterator(DEFAULT_MAPPER.createParser(reader), fieldName, klass);
+    }
+
+    /**
+     * 将解析器移动到数组的开始位置，并创建数组迭代器
+     *
+     * @param parser    json解析器
+     * @param fieldName 数组字段名，为null时读取顶层数组
+     * @param klass     数组元素的类
+     * @return {@link JsonArrayIterator }<{@link T }>
+     * @throws IOException IO异常
+     * @author Tequila
+     * @date 2022/12/09 15:20
+     */
+    private static <T> JsonArrayIterator<T> json2iterator(JsonParser parser, String fieldName, Class<T> klass) throws IOException {
+        try {
+            ObjectReader elementReader = reader(DEFAULT_MAPPER.constructType(klass));
+            JsonToken token = parser.nextToken();
+            if (fieldName != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.close();
+                    return new JsonArrayIterator<>(null, elementReader);
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if (fieldName.equals(name)) break;
+                    parser.skipChildren();  // 跳过其它字段的值，不解析成对象
+                }
+            }
+            return new JsonArrayIterator<>(parser, elementReader);
+        } catch (IOException | RuntimeException e) {
+            parser.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 获取共享的默认ObjectMapper<br>
+     * 该对象在所有方法中共享，不要修改它的配置，需要不同配置时使用{@link #defaultObjectMapperBuilder()}创建新的对象
+     *
+     * @return {@link ObjectMapper }
+     * @author Tequila
+     * @date 2022/12/09 10:30
+     */
+    public static ObjectMapper getObjectMapper() {
+        return DEFAULT_MAPPER;
+    }
+
+    /**
+     * 获取类型对应的ObjectReader
+     *
+     * @param type 类型
+     * @return {@link ObjectReader }
+     * @author Tequila
+     * @date 2022/12/09 10:32
+     */
+    private static ObjectReader reader(JavaType type) {
+        return cached(READERS, type, DEFAULT_MAPPER::readerFor);
+    }
+
+    /**
+     * 获取配置了MixIn的ObjectMapper
+     *
+     * @param targetClass 目标类
+     * @param mixInClass  mixInClass，为null时返回默认的ObjectMapper
+     * @return {@link ObjectMapper }
+     * @author Tequila
+     * @date 2022/12/09 10:35
+     */
+    private static ObjectMapper mixInMapper(Class<?> targetClass, Class<?> mixInClass) {
+        if (mixInClass == null) return FILTER_MAPPER;
 
-        JavaType klass = mapper.getTypeFactory().constructMapType(mapClass, keyClass, valueClass);
-        return mapper.readValue(json, klass);
+        return cached(MIXIN_MAPPERS, new MixInKey(targetClass, mixInClass),
+                k -> FILTER_MAPPER.copy().addMixIn(targetClass, mixInClass));
+    }
+
+    /**
+     * 使用ObjectWriter输出json字符串
+     *
+     * @param writer ObjectWriter
+     * @param obj    需要转换的object
+     * @return {@link String }
+     * @throws JacksonException json处理异常时抛出错误
+     * @author Tequila
+     * @date 2022/12/09 10:38
+     */
+    private static String write(ObjectWriter writer, Object obj) throws JacksonException {
+        if (usePrettyMode) {
+            return writer.withDefaultPrettyPrinter().writeValueAsString(obj);
+        } else {
+            return writer.writeValueAsString(obj);
+        }
+    }
+
+    /**
+     * 从缓存中获取，不存在时创建；缓存数量超过上限时清空，避免动态生成的key无限增长
+     *
+     * @param cache    缓存
+     * @param key      key
+     * @param function 创建方法
+     * @return {@link V }
+     * @author Tequila
+     * @date 2022/12/09 10:40
+     */
+    private static <K, V> V cached(Map<K, V> cache, K key, Function<? super K, ? extends V> function) {
+        V value = cache.get(key);
+        if (value != null) return value;
+
+        if (cache.size() >= MAX_CACHE_SIZE) cache.clear();
+        return cache.computeIfAbsent(key, function);
     }
 
     /**
@@ -367,6 +704,82 @@ public class Jackson2Utils {
     @JsonFilter(DEFAULT_JSON_FILTER)
     public static interface DefaultFilter {}
 
+    /**
+     * MixIn缓存的key
+     *
+     * @author Tequila
+     * @create 2022/12/09 10:20
+     **/
+    private static final class MixInKey {
+
+        private final Class<?> targetClass;
+
+        private final Class<?> mixInClass;
+
+        private MixInKey(Class<?> targetClass, Class<?> mixInClass) {
+            this.targetClass = targetClass;
+            this.mixInClass = mixInClass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MixInKey)) return false;
+            MixInKey that = (MixInKey) o;
+            return targetClass == that.targetClass && mixInClass == that.mixInClass;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * targetClass.hashCode() + mixInClass.hashCode();
+        }
+    }
+
+    /**
+     * 过滤字段缓存的key
+     *
+     * @author Tequila
+     * @create 2022/12/09 10:22
+     **/
+    private static final class FieldsKey {
+
+        private final Class<?> targetClass;
+
+        private final Class<?> mixInClass;
+
+        private final String filterName;
+
+        private final boolean include;
+
+        private final String[] fields;
+
+        private FieldsKey(Class<?> targetClass, Class<?> mixInClass, String filterName, boolean include, String[] fields) {
+            this.targetClass = mixInClass != null ? targetClass : null;  // 没有MixIn时与目标类无关
+            this.mixInClass = mixInClass;
+            this.filterName = filterName;
+            this.include = include;
+            this.fields = fields != null ? fields.clone() : new String[0];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FieldsKey)) return false;
+            FieldsKey that = (FieldsKey) o;
+            return targetClass == that.targetClass && mixInClass == that.mixInClass && include == that.include
+                    && filterName.equals(that.filterName) && Arrays.equals(fields, that.fields);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = System.identityHashCode(targetClass);
+            result = 31 * result + System.identityHashCode(mixInClass);
+            result = 31 * result + filterName.hashCode();
+            result = 31 * result + (include ? 1 : 0);
+            return 31 * result + Arrays.hashCode(fields);
+        }
+    }
+
     private Jackson2Utils() {
         throw new IllegalStateException("Utility class");
     }
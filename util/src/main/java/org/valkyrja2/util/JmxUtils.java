@@ -0,0 +1,79 @@
+/*
+ * PROJECT valkyrja2
+ * util/JmxUtils.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * JMX工具类<br>
+ * 统计类（缓存、幂等、接口耗时等）统一注册到{@link #DOMAIN}下，ObjectName为 domain:type=类型,键=值
+ *
+ * @author Tequila
+ * @create 2022/12/09 16:50
+ **/
+public class JmxUtils {
+
+	private static final Logger log = LoggerFactory.getLogger(JmxUtils.class);
+
+	/** JMX domain */
+	public static final String DOMAIN = "org.valkyrja2";
+
+	private JmxUtils() {
+		throw new IllegalStateException("Utility class");
+	}
+
+	/**
+	 * 注册MBean到平台MBeanServer，已经注册过时忽略；注册失败只输出debug日志，不影响调用方
+	 *
+	 * @param mbean MBean对象
+	 * @param type  类型，例如CacherMetrics
+	 * @param key   属性名，例如prefix
+	 * @param value 属性值，会被转义
+	 * @return boolean 是否注册成功
+	 * @author Tequila
+	 * @date 2022/12/09 16:52
+	 */
+	public static boolean registerMBean(Object mbean, String type, String key, String value) {
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":type=" + type + "," + key + "=" + ObjectName.quote(value));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (!server.isRegistered(name)) {
+				server.registerMBean(mbean, name);
+			}
+			return true;
+		} catch (Exception e) {
+			log.debug("Register {} MBean of [{}] error.", type, value, e);
+			return false;
+		}
+	}
+
+	/**
+	 * 从平台MBeanServer注销{@link #registerMBean(Object, String, String, String)}注册的MBean，没有注册时忽略
+	 *
+	 * @param type  类型
+	 * @param key   属性名
+	 * @param value 属性值
+	 * @author Tequila
+	 * @date 2022/12/09 17:40
+	 */
+	public static void unregisterMBean(String type, String key, String value) {
+		try {
+			ObjectName name = new ObjectName(DOMAIN + ":type=" + type + "," + key + "=" + ObjectName.quote(value));
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+		} catch (Exception e) {
+			log.debug("Unregister {} MBean of [{}] error.", type, value, e);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * PROJECT valkyrja2
+ * util/JsonArrayIterator.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.valkyrja2.util.exception.JsonRuntimeException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * json数组的增量读取<br>
+ * 每次只解析数组中的一个元素，处理很大的json数组时内存占用不随数组长度增长。
+ * 数组读取完成或者调用{@link #close()}时关闭JsonParser（同时关闭输入流）。
+ * <pre>
+ * try (JsonArrayIterator&lt;Order&gt; it = Jackson2Utils.json2iterator(in, "data", Order.class)) {
+ *     while (it.hasNext()) {
+ *         process(it.next());
+ *     }
+ * }
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/12/09 15:00
+ **/
+public class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    /** json解析器 */
+    private final JsonParser parser;
+
+    /** 元素的ObjectReader */
+    private final ObjectReader reader;
+
+    /** 已经读取还没有返回的元素 */
+    private T nextValue;
+
+    /** 是否已经读取了下一个元素 */
+    private boolean hasNextValue;
+
+    /** 数组是否已经读取完成 */
+    private boolean finished;
+
+    /**
+     * 构造数组迭代器，parser的当前位置必须是数组的开始（START_ARRAY），为null时表示空数组
+     *
+     * @param parser json解析器
+     * @param reader 元素的ObjectReader
+     * @author Tequila
+     * @date 2022/12/09 15:02
+     */
+    JsonArrayIterator(JsonParser parser, ObjectReader reader) throws IOException {
+        this.parser = parser;
+        this.reader = reader;
+        if (parser == null || parser.currentToken() != JsonToken.START_ARRAY) {
+            close();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (hasNextValue) return true;
+        if (finished) return false;
+
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                close();
+                return false;
+            }
+            nextValue = reader.readValue(parser);
+            hasNextValue = true;
+            return true;
+        } catch (IOException e) {
+            closeQuietly();
+            throw new JsonRuntimeException("Read json array element raise error.", e);
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        T value = nextValue;
+        nextValue = null;
+        hasNextValue = false;
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        if (parser != null && !parser.isClosed()) {
+            parser.close();
+        }
+    }
+
+    /**
+     * 关闭解析器，忽略错误
+     *
+     * @author Tequila
+     * @date 2022/12/09 15:05
+     */
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            /* ignore */
+        }
+    }
+}
@@ -11,6 +11,7 @@ import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -177,6 +178,45 @@ public class JsonFilterExSerialization {
         objectMapper.setFilterProvider(filterProvider);
     }
 
+    /**
+     * 根据注释中的JsonFilterEx配置创建ObjectWriter<br>
+     * ObjectWriter是不可变的，可以缓存并在多个线程中共享，共享同一个ObjectWriter时可以复用Jackson的序列化器缓存
+     *
+     * @param annotations 注释
+     * @return {@link ObjectWriter }
+     * @author Tequila
+     * @date 2022/12/09 09:30
+     */
+    public static ObjectWriter createObjectWriter(Annotation[] annotations) {
+        return createObjectWriter(annotations, Jackson2Utils.isUseAfterburner());
+    }
+
+    /**
+     * 根据注释中的JsonFilterEx配置创建ObjectWriter
+     *
+     * @param annotations 注释
+     * @param afterburner 是否使用Afterburner，classpath中不存在Afterburner时忽略
+     * @return {@link ObjectWriter }
+     * @author Tequila
+     * @date 2022/12/09 13:45
+     */
+    public static ObjectWriter createObjectWriter(Annotation[] annotations, boolean afterburner) {
+        JsonFilterExSerialization serialization = new JsonFilterExSerialization(null, fromAnnotations(annotations));
+        Jackson2Utils.registerAfterburner(serialization.objectMapper, afterburner);
+        return serialization.getObjectWriter();
+    }
+
+    /**
+     * 获取当前配置的ObjectWriter
+     *
+     * @return {@link ObjectWriter }
+     * @author Tequila
+     * @date 2022/12/09 09:32
+     */
+    public ObjectWriter getObjectWriter() {
+        return prettyPrint ? objectMapper.writerWithDefaultPrettyPrinter() : objectMapper.writer();
+    }
+
     /**
      * 动态生成用户输出数据使用的JsonGenerator对象
      *
@@ -0,0 +1,171 @@
+/*
+ * PROJECT valkyrja2
+ * util/LogLinearHistogram.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的对数-线性直方图<br>
+ * 每个2的幂区间再平均分成8个子区间，相对误差不超过12.5%，记录一个值只需要一次原子加法，
+ * 适合在高并发的请求路径中统计耗时等非负整数值（例如微秒）。
+ * <pre>
+ *      LogLinearHistogram histogram = new LogLinearHistogram();
+ *      histogram.record(elapsedMicros);
+ *      histogram.percentile(99);
+ * </pre>
+ *
+ * @author Tequila
+ * @create 2022/11/29 10:00
+ **/
+public class LogLinearHistogram {
+
+    /** 每个2的幂区间分成2^SUB_BITS个子区间 */
+    private static final int SUB_BITS = 3;
+
+    /** 子区间数量 */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    /** 桶数量，覆盖0到Long.MAX_VALUE */
+    private static final int BUCKET_COUNT = (Long.SIZE - 1 - SUB_BITS + 1) * SUB_COUNT;
+
+    /** 每个桶的计数 */
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /** 总数 */
+    private final LongAdder count = new LongAdder();
+
+    /** 总和 */
+    private final LongAdder sum = new LongAdder();
+
+    /** 最大值 */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值，负数按0记录
+     *
+     * @param value 值
+     * @author Tequila
+     * @date 2022/11/29 10:10
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * 获取百分位数，返回值所在桶的上限（不超过最大值）
+     *
+     * @param percentile 百分位（0-100）
+     * @return long 没有数据时返回0
+     * @author Tequila
+     * @date 2022/11/29 10:15
+     */
+    public long percentile(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+
+        long target = (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * total);
+        if (target < 1) target = 1;
+
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += counts[i];
+            if (cumulative >= target) {
+                return Math.min(bucketUpperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 清空所有数据
+     * 清空过程中同时记录的值可能会部分丢失
+     *
+     * @author Tequila
+     * @date 2022/11/29 10:20
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * 平均值
+     *
+     * @return double 没有数据时返回0
+     * @author Tequila
+     * @date 2022/11/29 10:22
+     */
+    public double getMean() {
+        long c = count.sum();
+        return c == 0 ? 0 : (double) sum.sum() / c;
+    }
+
+    /**
+     * 计算值所在的桶
+     *
+     * @param value 值
+     * @return int
+     * @author Tequila
+     * @date 2022/11/29 10:25
+     */
+    static int bucketIndex(long value) {
+        if (value < SUB_COUNT) return (int) value;
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * 桶的上限（包含）
+     *
+     * @param index 桶
+     * @return long
+     * @author Tequila
+     * @date 2022/11/29 10:28
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_COUNT) return index;
+
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        long sub = index % SUB_COUNT;
+        long upper = ((SUB_COUNT + sub + 1) << (exponent - SUB_BITS)) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
@@ -310,6 +310,28 @@ public class NetworkUtils {
 		return body.toString();
     }
 
+	/**
+	 * 从HttpServletRequest对象中读取body的前maxLength个字符
+	 *
+	 * @param request   http请求
+	 * @param maxLength 最大读取的字符数
+	 * @return {@link String }
+	 * @throws IOException IO异常
+	 * @author Tequila
+	 * @date 2022/12/09 17:25
+	 */
+	public static String getHttpRequestBody(HttpServletRequest request, int maxLength) throws IOException {
+		BufferedReader br = request.getReader();
+		StringBuilder body = new StringBuilder(Math.min(maxLength, 1024));
+		char[] buffer = new char[Math.max(Math.min(maxLength, 1024), 1)];
+		int n;
+		while (body.length() < maxLength
+				&& (n = br.read(buffer, 0, Math.min(buffer.length, maxLength - body.length()))) != -1) {
+			body.append(buffer, 0, n);
+		}
+		return body.toString();
+	}
+
 	/**
 	 * 根据名字获取Cookie对象
 	 *
@@ -0,0 +1,114 @@
+/*
+ * PROJECT valkyrja2
+ * util/UlidGenerator.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ULID格式的Id生成器<br>
+ * 26个字符（Crockford Base32），前10个字符为48位毫秒时间戳，后16个字符为80位随机数，生成的Id按时间排序。<br>
+ * 随机数来自{@link ThreadLocalRandom}，每个线程独立，不需要加锁；
+ * 同一个线程在同一毫秒内生成的Id在上一个随机数的基础上加1，保证单调递增。
+ *
+ * @author Tequila
+ * @create 2022/12/07 16:25
+ **/
+public class UlidGenerator implements IdGenerator {
+
+    /** Id长度 */
+    public static final int ULID_LENGTH = 26;
+
+    /** 时间戳部分的长度 */
+    private static final int TIME_LENGTH = 10;
+
+    /** Crockford Base32字符表 */
+    private static final char[] ENCODING = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    /** 每个线程上一次生成的时间和随机数，{ 时间, 随机数高16位, 随机数低64位 } */
+    private static final ThreadLocal<long[]> LAST = ThreadLocal.withInitial(() -> new long[3]);
+
+    @Override
+    public String nextId() {
+        long time = System.currentTimeMillis();
+        long[] last = LAST.get();
+        long hi;
+        long lo;
+        if (time == last[0]) {
+            /* 同一毫秒内随机数加1，进位到高16位 */
+            lo = last[2] + 1;
+            hi = lo == 0 ? (last[1] + 1) & 0xFFFFL : last[1];
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            hi = random.nextInt() & 0xFFFFL;
+            lo = random.nextLong();
+        }
+        last[0] = time;
+        last[1] = hi;
+        last[2] = lo;
+
+        return encode(time, hi, lo);
+    }
+
+    /**
+     * 从Id中读取时间戳
+     *
+     * @param id ULID
+     * @return long 毫秒时间戳
+     * @author Tequila
+     * @date 2022/12/07 16:40
+     */
+    public static long timestamp(String id) {
+        if (id == null || id.length() != ULID_LENGTH) {
+            throw new IllegalArgumentException("Invalid ulid: " + id);
+        }
+
+        long time = 0;
+        for (int i = 0; i < TIME_LENGTH; i++) {
+            int v = decode(id.charAt(i));
+            if (v < 0) throw new IllegalArgumentException("Invalid ulid: " + id);
+            time = (time << 5) | v;
+        }
+        return time;
+    }
+
+    /**
+     * 编码为ULID字符串
+     *
+     * @param time 毫秒时间戳（48位）
+     * @param hi   随机数高16位
+     * @param lo   随机数低64位
+     * @return {@link String }
+     * @author Tequila
+     * @date 2022/12/07 16:35
+     */
+    static String encode(long time, long hi, long lo) {
+        char[] chars = new char[ULID_LENGTH];
+        for (int i = 0; i < TIME_LENGTH; i++) {
+            chars[i] = ENCODING[(int) (time >>> (45 - 5 * i)) & 31];
+        }
+        for (int i = 0; i < ULID_LENGTH - TIME_LENGTH; i++) {
+            int shift = 75 - 5 * i;
+            long v;
+            if (shift >= 64) {
+                v = hi >>> (shift - 64);
+            } else if (shift + 5 <= 64) {
+                v = lo >>> shift;
+            } else {
+                v = (hi << (64 - shift)) | (lo >>> shift);  // 跨越高低两部分
+            }
+            chars[TIME_LENGTH + i] = ENCODING[(int) v & 31];
+        }
+        return new String(chars);
+    }
+
+    private static int decode(char c) {
+        for (int i = 0; i < ENCODING.length; i++) {
+            if (ENCODING[i] == Character.toUpperCase(c)) return i;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * PROJECT valkyrja2
+ * util/AfterburnerTest.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AfterburnerTest {
+
+    public static class Item {
+        private String code;
+        private String name;
+        private int quantity;
+        private double price;
+        private boolean valid;
+
+        public String getCode() { return code; }
+        public void setCode(String code) { this.code = code; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+        public double getPrice() { return price; }
+        public void setPrice(double price) { this.price = price; }
+        public boolean isValid() { return valid; }
+        public void setValid(boolean valid) { this.valid = valid; }
+    }
+
+    public static class Order {
+        private String id;
+        private long createTime;
+        private String status;
+        private List<Item> items = new ArrayList<>();
+
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public long getCreateTime() { return createTime; }
+        public void setCreateTime(long createTime) { this.createTime = createTime; }
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+        public List<Item> getItems() { return items; }
+        public void setItems(List<Item> items) { this.items = items; }
+    }
+
+    static Order createOrder() {
+        Order order = new Order();
+        order.setId("01GKQ8Z6Y3A7R2M4N5P6Q7R8S9");
+        order.setCreateTime(1670563200000L);
+        order.setStatus("PAID");
+        for (int i = 0; i < 10; i++) {
+            Item item = new Item();
+            item.setCode("ITEM-" + i);
+            item.setName("商品" + i);
+            item.setQuantity(i + 1);
+            item.setPrice(9.9 * (i + 1));
+            item.setValid(i % 2 == 0);
+            order.getItems().add(item);
+        }
+        return order;
+    }
+
+    @Test
+    void testSameOutput() throws Exception {
+        Order order = createOrder();
+        String plain = Jackson2Utils.defaultObjectMapperBuilder(false).build().writeValueAsString(order);
+        String burned = Jackson2Utils.defaultObjectMapperBuilder(true).build().writeValueAsString(order);
+        assertEquals(plain, burned);
+
+        Order parsed = Jackson2Utils.defaultObjectMapperBuilder(true).build().readValue(plain, Order.class);
+        assertEquals(order.getItems().size(), parsed.getItems().size());
+        assertEquals(order.getItems().get(3).getName(), parsed.getItems().get(3).getName());
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * PROJECT valkyrja2
+ * util/BeanWithClassFilterProviderTest.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeanWithClassFilterProviderTest {
+
+    interface Named { }
+
+    interface Titled extends Named { }
+
+    static class Base implements Named { }
+
+    static class Child extends Base { }
+
+    static class Leaf extends Child implements Titled { }
+
+    static class Other { }
+
+    @Test
+    void testNearestFilter() {
+        PropertyFilter named = BeanPropertyWithClassFilter.serializeAll();
+        PropertyFilter base = BeanPropertyWithClassFilter.filterOutAllExcept(Base.class, "id");
+        PropertyFilter titled = BeanPropertyWithClassFilter.filterOutAllExcept(Titled.class, "title");
+
+        BeanWithClassFilterProvider provider = new BeanWithClassFilterProvider()
+                .addFilter(Named.class, named)
+                .addFilter(Base.class, base);
+
+        assertSame(base, provider.findFilterByType(Base.class));  // 类本身优先于接口
+        assertSame(base, provider.findFilterByType(Child.class));
+        assertSame(base, provider.findFilterByType(Leaf.class));
+        assertNull(provider.findFilterByType(Other.class));
+
+        provider.addFilter(Titled.class, titled);  // 添加后缓存失效
+        assertSame(titled, provider.findFilterByType(Leaf.class));  // 直接实现的接口比父类的父类近
+        assertSame(base, provider.findFilterByType(Child.class));
+    }
+
+    @Test
+    void testDefaultFilter() {
+        BeanWithClassFilterProvider provider = new BeanWithClassFilterProvider();
+        assertThrows(IllegalArgumentException.class, () -> provider.findPropertyFilter("filter", new Other()));
+
+        provider.setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+        assertNotNull(provider.findPropertyFilter("filter", new Other()));
+    }
+}
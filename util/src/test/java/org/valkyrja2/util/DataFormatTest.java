@@ -0,0 +1,34 @@
+/*
+ * PROJECT valkyrja2
+ * util/DataFormatTest.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataFormatTest {
+
+    @Test
+    void testFromMediaType() {
+        assertEquals(DataFormat.JSON, DataFormat.fromMediaType("application/json;charset=UTF-8"));
+        assertEquals(DataFormat.SMILE, DataFormat.fromMediaType("application/x-jackson-smile"));
+        assertEquals(DataFormat.CBOR, DataFormat.fromMediaType(" Application/CBOR "));
+        assertNull(DataFormat.fromMediaType("text/html"));
+        assertNull(DataFormat.fromMediaType(null));
+    }
+
+    @Test
+    void testNegotiate() {
+        assertEquals(DataFormat.JSON, DataFormat.negotiate(null));
+        assertEquals(DataFormat.JSON, DataFormat.negotiate("*/*"));
+        assertEquals(DataFormat.JSON, DataFormat.negotiate("text/html,application/xhtml+xml,*/*;q=0.8"));
+        assertEquals(DataFormat.SMILE, DataFormat.negotiate("application/x-jackson-smile"));
+        assertEquals(DataFormat.CBOR, DataFormat.negotiate("application/cbor, application/json;q=0.5"));
+        assertEquals(DataFormat.JSON, DataFormat.negotiate("application/cbor;q=0.2, application/json"));
+        assertEquals(DataFormat.JSON, DataFormat.negotiate("application/cbor;q=0"));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * PROJECT valkyrja2
+ * util/JsonArrayIteratorTest.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonArrayIteratorTest {
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static <T> List<T> toList(JsonArrayIterator<T> it) {
+        List<T> list = new ArrayList<>();
+        it.forEachRemaining(list::add);
+        return list;
+    }
+
+    @Test
+    void testTopLevelArray() throws Exception {
+        try (JsonArrayIterator<Integer> it = Jackson2Utils.json2iterator(stream("[1, 2, 3]"), Integer.class)) {
+            assertEquals(1, it.next());
+            assertTrue(it.hasNext());
+            assertTrue(it.hasNext());
+            assertEquals(2, it.next());
+            assertEquals(3, it.next());
+            assertFalse(it.hasNext());
+            assertThrows(NoSuchElementException.class, it::next);
+        }
+    }
+
+    @Test
+    void testNamedField() throws Exception {
+        String json = "{\"code\": 0, \"skip\": {\"data\": [9]}, \"data\": [{\"id\": \"a\"}, {\"id\": \"b\"}], \"msg\": \"ok\"}";
+        @SuppressWarnings("rawtypes")
+        List<Map> list = toList(Jackson2Utils.json2iterator(new StringReader(json), "data", Map.class));
+        assertEquals(2, list.size());
+        assertEquals("b", list.get(1).get("id"));
+
+        assertFalse(Jackson2Utils.json2iterator(stream(json), "none", Map.class).hasNext());
+        assertFalse(Jackson2Utils.json2iterator(stream(json), "code", Map.class).hasNext());
+        assertFalse(Jackson2Utils.json2iterator(stream("[1]"), "data", Integer.class).hasNext());
+        assertFalse(Jackson2Utils.json2iterator(stream("{}"), Integer.class).hasNext());
+    }
+
+    @Test
+    void testJson2obj() throws Exception {
+        String json = "{\"id\": \"1\", \"name\": \"test\"}";
+        assertEquals("test", Jackson2Utils.json2obj(json.getBytes(StandardCharsets.UTF_8), Map.class).get("name"));
+        assertEquals("test", Jackson2Utils.json2obj(stream(json), Map.class).get("name"));
+        assertEquals("test", Jackson2Utils.json2obj(new StringReader(json), Map.class).get("name"));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * PROJECT valkyrja2
+ * util/LogLinearHistogramTest.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLinearHistogramTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LogLinearHistogramTest.class);
+
+    @Test
+    void testBucket() {
+        for (long v : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 100, 1000, 123456789L, Long.MAX_VALUE}) {
+            int index = LogLinearHistogram.bucketIndex(v);
+            assertTrue(LogLinearHistogram.bucketUpperBound(index) >= v);
+            if (index > 0) {
+                assertTrue(LogLinearHistogram.bucketUpperBound(index - 1) < v);
+            }
+        }
+    }
+
+    @Test
+    void testPercentile() {
+        LogLinearHistogram histogram = new LogLinearHistogram();
+        assertEquals(0, histogram.percentile(99));
+
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        long p50 = histogram.percentile(50);
+        long p99 = histogram.percentile(99);
+        log.info("count: {}, mean: {}, p50: {}, p99: {}, max: {}",
+                histogram.getCount(), histogram.getMean(), p50, p99, histogram.getMax());
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500500, histogram.getSum());
+        assertEquals(1000, histogram.getMax());
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.125);
+        assertTrue(p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, histogram.percentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(50));
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * PROJECT valkyrja2
+ * util/UlidGeneratorTest.java
+ * Copyright (c) 2022 Tequila.Yang
+ */
+
+package org.valkyrja2.util;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UlidGeneratorTest {
+
+    private static final Logger log = LoggerFactory.getLogger(UlidGeneratorTest.class);
+
+    @Test
+    void testNextId() {
+        UlidGenerator generator = new UlidGenerator();
+        long start = System.currentTimeMillis();
+        String id = generator.nextId();
+        log.info("ulid: {}", id);
+
+        assertEquals(UlidGenerator.ULID_LENGTH, id.length());
+        long time = UlidGenerator.timestamp(id);
+        assertTrue(time >= start && time <= System.currentTimeMillis());
+    }
+
+    @Test
+    void testMonotonic() {
+        UlidGenerator generator = new UlidGenerator();
+        Set<String> ids = new HashSet<>();
+        String last = "";
+        for (int i = 0; i < 100000; i++) {
+            String id = generator.nextId();
+            assertTrue(id.compareTo(last) > 0);
+            assertTrue(ids.add(id));
+            last = id;
+        }
+    }
+
+    @Test
+    void testEncode() {
+        assertEquals("00000000000000000000000000", UlidGenerator.encode(0, 0, 0));
+        assertEquals("7ZZZZZZZZZZZZZZZZZZZZZZZZZ", UlidGenerator.encode(0xFFFFFFFFFFFFL, 0xFFFFL, -1L));
+        assertEquals("0000000001000000000000000G", UlidGenerator.encode(1, 0, 16));
+        assertEquals("00000000000000000000000000".length(), UlidGenerator.encode(1, 1, 1).length());
+        assertEquals(1, UlidGenerator.timestamp(UlidGenerator.encode(1, 0, 0)));
+    }
+}